@@ -0,0 +1,57 @@
+package com.github.sowasvonbot;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import be.seeseemelk.mockbukkit.ServerMock;
+import be.seeseemelk.mockbukkit.WorldMock;
+import org.bukkit.Material;
+
+/**
+ * Stand-in server for the benchmarks. Starts a MockBukkit server with one flat world and enables
+ * the plugin on it, like a real server would.
+ */
+public class BenchmarkServer {
+
+  private final ServerMock server;
+  private final WorldMock world;
+
+  private BenchmarkServer(ServerMock server, WorldMock world) {
+    this.server = server;
+    this.world = world;
+  }
+
+  /**
+   * Starts the server and enables the plugin. Only one server may run at a time.
+   *
+   * @return the running {@link BenchmarkServer}
+   */
+  public static BenchmarkServer start() {
+    ServerMock server = MockBukkit.mock();
+    WorldMock world = new WorldMock(Material.STONE, 63);
+    world.setName("world");
+    server.addWorld(world);
+    MockBukkit.load(RealCoinsPlugin.class);
+    return new BenchmarkServer(server, world);
+  }
+
+  /**
+   * Disables the plugin and stops the server.
+   */
+  public void stop() {
+    MockBukkit.unmock();
+  }
+
+  public ServerMock getServer() {
+    return server;
+  }
+
+  public WorldMock getWorld() {
+    return world;
+  }
+
+  /**
+   * Runs the scheduled tasks of the next tick, e.g. trades scheduled by the plugin.
+   */
+  public void tick() {
+    server.getScheduler().performOneTick();
+  }
+}
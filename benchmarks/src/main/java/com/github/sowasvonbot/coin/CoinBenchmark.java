@@ -0,0 +1,89 @@
+package com.github.sowasvonbot.coin;
+
+import com.github.sowasvonbot.BenchmarkServer;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Coin checks and coin creation. Run with {@code -prof gc} to see the allocations per check, a
+ * rejected item of another material should not allocate at all.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoinBenchmark {
+
+  private BenchmarkServer server;
+  private ItemStack coin;
+  private ItemStack denominationCoin;
+  private ItemStack otherMaterial;
+  private ItemStack sameMaterial;
+
+  /**
+   * Starts the server and prepares one item for every path of the coin check.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    server = BenchmarkServer.start();
+    coin = Coin.createItemStack(64);
+    denominationCoin = Coin.createChange(6400);
+    otherMaterial = new ItemStack(Material.DIAMOND, 64);
+    // same material as the coin, but without the coin marker
+    sameMaterial = new ItemStack(coin.getType(), 64);
+    ItemMeta itemMeta = sameMaterial.getItemMeta();
+    itemMeta.setDisplayName("Coin");
+    sameMaterial.setItemMeta(itemMeta);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Benchmark
+  public boolean isCoinAccepted() {
+    return Coin.isCoin(coin);
+  }
+
+  @Benchmark
+  public boolean isCoinOtherMaterial() {
+    return Coin.isCoin(otherMaterial);
+  }
+
+  @Benchmark
+  public boolean isCoinSameMaterial() {
+    return Coin.isCoin(sameMaterial);
+  }
+
+  @Benchmark
+  public int valueOfDenomination() {
+    return Coin.getValue(denominationCoin);
+  }
+
+  @Benchmark
+  public ItemStack createItemStack() {
+    return Coin.createItemStack(64);
+  }
+
+  @Benchmark
+  public ItemStack createChange() {
+    return Coin.createChange(1234);
+  }
+}
@@ -0,0 +1,92 @@
+package com.github.sowasvonbot.coin.storage;
+
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.github.sowasvonbot.BenchmarkServer;
+import com.github.sowasvonbot.util.BlockUtility;
+import com.github.sowasvonbot.util.ItemConverter;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Location;
+import org.bukkit.persistence.PersistentDataType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Parsing of the coin chest list stored in the persistent data of a player. The legacy format is
+ * rewritten on read, so it is stored again before every invocation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CoinChestsBenchmark {
+
+  @Param({"1", "16", "128"})
+  public int chests;
+
+  @Param({"current", "legacy"})
+  public String format;
+
+  private BenchmarkServer server;
+  private PlayerMock player;
+  private long[] current;
+  private String legacy;
+
+  /**
+   * Starts the server and encodes the chest list in both formats.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    server = BenchmarkServer.start();
+    player = server.getServer().addPlayer();
+    StringBuilder legacyBuilder = new StringBuilder();
+    current = new long[chests * 3];
+    for (int i = 0; i < chests; i++) {
+      Location location = new Location(server.getWorld(), i * 3, 64, 0);
+      legacyBuilder.append(ItemConverter.objectToBase64String(location.serialize()).orElseThrow())
+          .append(';');
+      current[i * 3] = server.getWorld().getUID().getMostSignificantBits();
+      current[i * 3 + 1] = server.getWorld().getUID().getLeastSignificantBits();
+      current[i * 3 + 2] = BlockUtility.packPosition(i * 3, 64, 0);
+    }
+    legacy = legacyBuilder.toString();
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    server.stop();
+  }
+
+  /**
+   * Stores the chest list in the benchmarked format. Not part of the measurement.
+   */
+  @Setup(Level.Invocation)
+  public void store() {
+    player.getPersistentDataContainer().remove(Constants.PLAYER_STORAGE_KEY);
+    if (format.equals("legacy")) {
+      player.getPersistentDataContainer()
+          .set(Constants.PLAYER_STORAGE_KEY, PersistentDataType.STRING, legacy);
+    } else {
+      player.getPersistentDataContainer()
+          .set(Constants.PLAYER_STORAGE_KEY, PersistentDataType.LONG_ARRAY, current);
+    }
+  }
+
+  @Benchmark
+  public List<CoinChest> read() {
+    return CoinChests.read(player);
+  }
+}
@@ -0,0 +1,56 @@
+package com.github.sowasvonbot.load;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Settings of one load test run, read from {@code key=value} arguments.
+ *
+ * @param shops         number of trade chests
+ * @param players       number of online players, every tenth player owns shops
+ * @param ticks         measured ticks
+ * @param warmupTicks   ticks run before the measurement
+ * @param eventsPerTick events fired per tick
+ * @param mix           weight of every {@link LoadEvent}
+ * @param seed          seed of the random event choice
+ */
+record LoadConfig(int shops, int players, int ticks, int warmupTicks, int eventsPerTick,
+                  Map<LoadEvent, Integer> mix, long seed) {
+
+  static final String USAGE = "shops=2000 players=300 ticks=1200 warmup=200 events=40 "
+      + "mix=buy:60,restock:10,hopper:25,join:3,price:2 seed=1";
+
+  /**
+   * Parses the arguments, missing arguments keep their default value.
+   *
+   * @param args arguments in the form {@code key=value}, see {@link #USAGE}
+   * @return the {@link LoadConfig}
+   */
+  static LoadConfig parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String argument : USAGE.split(" ")) {
+      String[] pair = argument.split("=", 2);
+      values.put(pair[0], pair[1]);
+    }
+    for (String argument : args) {
+      String[] pair = argument.split("=", 2);
+      if (pair.length != 2 || !values.containsKey(pair[0])) {
+        throw new IllegalArgumentException(
+            String.format("Unknown argument %s, expected e.g. %s", argument, USAGE));
+      }
+      values.put(pair[0], pair[1]);
+    }
+    Map<LoadEvent, Integer> mix = new EnumMap<>(LoadEvent.class);
+    for (String weight : values.get("mix").split(",")) {
+      String[] pair = weight.split(":", 2);
+      mix.put(LoadEvent.valueOf(pair[0].trim().toUpperCase(Locale.ROOT)),
+          Integer.parseInt(pair[1].trim()));
+    }
+    return new LoadConfig(Integer.parseInt(values.get("shops")),
+        Integer.parseInt(values.get("players")), Integer.parseInt(values.get("ticks")),
+        Integer.parseInt(values.get("warmup")), Integer.parseInt(values.get("events")), mix,
+        Long.parseLong(values.get("seed")));
+  }
+}
@@ -0,0 +1,17 @@
+package com.github.sowasvonbot.load;
+
+/**
+ * Kinds of player and world actions the load test fires.
+ */
+enum LoadEvent {
+  /** A player pays coins into a trade chest. */
+  BUY,
+  /** An owner puts new stock into a trade chest. */
+  RESTOCK,
+  /** A hopper tries to pull items out of a trade chest. */
+  HOPPER,
+  /** A shop owner joins and gets the buffered coins paid out. */
+  JOIN,
+  /** An owner changes the price at the trading sign. */
+  PRICE
+}
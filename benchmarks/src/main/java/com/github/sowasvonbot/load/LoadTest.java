@@ -0,0 +1,214 @@
+package com.github.sowasvonbot.load;
+
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.github.sowasvonbot.BenchmarkServer;
+import com.github.sowasvonbot.coin.Coin;
+import com.github.sowasvonbot.trading.BenchmarkShops;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import org.bukkit.Material;
+import org.bukkit.block.BlockFace;
+import org.bukkit.event.Event;
+import org.bukkit.event.block.Action;
+import org.bukkit.event.inventory.ClickType;
+import org.bukkit.event.inventory.InventoryAction;
+import org.bukkit.event.inventory.InventoryClickEvent;
+import org.bukkit.event.inventory.InventoryMoveItemEvent;
+import org.bukkit.event.inventory.InventoryType;
+import org.bukkit.event.player.PlayerInteractEvent;
+import org.bukkit.event.player.PlayerJoinEvent;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.InventoryView;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Synthetic load on a MockBukkit server. Thousands of trade chests are built, then every tick a
+ * configurable mix of events is fired at the listeners of the plugin (ChestListener, SignListener,
+ * PlayerJoinListener) and the scheduled tasks of the plugin run.
+ *
+ * <p>Only the time inside the plugin is measured: the event calls and the scheduler tick. Creating
+ * the events and preparing the chests is not part of the measurement. Allocations are counted for
+ * the main thread only, background writers are not included.
+ *
+ * <p>Usage: {@code java -cp target/benchmarks.jar com.github.sowasvonbot.load.LoadTest
+ * shops=2000 players=300 ...}, see {@link LoadConfig#USAGE} for all arguments.
+ */
+public class LoadTest {
+
+  private static final int SHOPS_PER_ROW = 100;
+  private static final int TICK_NANOS = 50_000_000;
+
+  private final LoadConfig config;
+  private final BenchmarkServer server;
+  private final Random random;
+  private final com.sun.management.ThreadMXBean threads =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private final List<BenchmarkShops.Shop> shops = new ArrayList<>();
+  private final List<PlayerMock> owners = new ArrayList<>();
+  private final List<PlayerMock> buyers = new ArrayList<>();
+  private final Inventory hopper;
+  private final Map<LoadEvent, Long> fired = new EnumMap<>(LoadEvent.class);
+  private final int totalWeight;
+
+  private long pluginNanos;
+  private long pluginBytes;
+
+  private LoadTest(LoadConfig config, BenchmarkServer server) {
+    this.config = config;
+    this.server = server;
+    this.random = new Random(config.seed());
+    this.hopper = server.getServer().createInventory(null, InventoryType.HOPPER);
+    this.totalWeight = config.mix().values().stream().mapToInt(Integer::intValue).sum();
+  }
+
+  /**
+   * Runs the load test and prints the report.
+   *
+   * @param args arguments in the form {@code key=value}
+   */
+  public static void main(String[] args) {
+    LoadConfig config = LoadConfig.parse(args);
+    BenchmarkServer server = BenchmarkServer.start();
+    try {
+      LoadTest loadTest = new LoadTest(config, server);
+      loadTest.build();
+      loadTest.run(config.warmupTicks());
+      loadTest.fired.clear();
+      loadTest.report(loadTest.run(config.ticks()));
+    } finally {
+      server.stop();
+    }
+  }
+
+  private void build() {
+    int ownerCount = Math.max(1, config.players() / 10);
+    for (int i = 0; i < config.players(); i++) {
+      PlayerMock player = server.getServer().addPlayer(String.format("player%d", i));
+      (i < ownerCount ? owners : buyers).add(player);
+    }
+    if (buyers.isEmpty()) {
+      buyers.addAll(owners);
+    }
+    for (int i = 0; i < config.shops(); i++) {
+      BenchmarkShops.Shop shop = BenchmarkShops.create(server.getWorld(),
+          (i % SHOPS_PER_ROW) * 2, (i / SHOPS_PER_ROW) * 3, owners.get(i % owners.size()),
+          new ItemStack(Material.STONE, 1 + random.nextInt(16)), 1 + random.nextInt(8));
+      shops.add(shop);
+      restock(shop, owners.get(i % owners.size()));
+    }
+    server.tick();
+  }
+
+  private Result run(int ticks) {
+    TickStats tickNanos = new TickStats(ticks);
+    TickStats tickBytes = new TickStats(ticks);
+    for (int tick = 0; tick < ticks; tick++) {
+      pluginNanos = 0;
+      pluginBytes = 0;
+      // every shop is used once per tick at most, like a chest opened by one player
+      Set<BenchmarkShops.Shop> busy = new HashSet<>();
+      for (int i = 0; i < config.eventsPerTick(); i++) {
+        fire(nextEvent(), busy);
+      }
+      measure(server::tick);
+      tickNanos.add(pluginNanos);
+      tickBytes.add(pluginBytes);
+    }
+    return new Result(ticks, tickNanos, tickBytes);
+  }
+
+  private LoadEvent nextEvent() {
+    int roll = random.nextInt(totalWeight);
+    for (Map.Entry<LoadEvent, Integer> weight : config.mix().entrySet()) {
+      roll -= weight.getValue();
+      if (roll < 0) {
+        return weight.getKey();
+      }
+    }
+    throw new IllegalStateException("Event mix without weights");
+  }
+
+  private void fire(LoadEvent event, Set<BenchmarkShops.Shop> busy) {
+    int index = random.nextInt(shops.size());
+    BenchmarkShops.Shop shop = shops.get(index);
+    PlayerMock owner = owners.get(index % owners.size());
+    if (event != LoadEvent.JOIN && !busy.add(shop)) {
+      return;
+    }
+    fired.merge(event, 1L, Long::sum);
+    switch (event) {
+      case BUY -> buy(shop, buyers.get(random.nextInt(buyers.size())));
+      case RESTOCK -> restock(shop, owner);
+      case HOPPER -> call(new InventoryMoveItemEvent(shop.inventory(),
+          new ItemStack(Material.STONE), hopper, false));
+      case JOIN -> call(new PlayerJoinEvent(owners.get(random.nextInt(owners.size())), "joined"));
+      case PRICE -> call(new PlayerInteractEvent(owner,
+          random.nextBoolean() ? Action.RIGHT_CLICK_BLOCK : Action.LEFT_CLICK_BLOCK,
+          Coin.createItemStack(), shop.sign().getBlock(), BlockFace.SOUTH));
+      default -> throw new IllegalStateException(String.format("Unknown event %s", event));
+    }
+  }
+
+  private void buy(BenchmarkShops.Shop shop, PlayerMock buyer) {
+    // the buyer took the items of the last trade, then drops the payment into the chest
+    shop.inventory().clear();
+    long payment = 1 + random.nextInt(128);
+    while (payment > 0) {
+      ItemStack coins = Coin.createChange(payment);
+      payment -= (long) coins.getAmount() * Coin.getValue(coins);
+      shop.inventory().addItem(coins);
+    }
+    buyer.setItemOnCursor(Coin.createItemStack());
+    InventoryView view = buyer.openInventory(shop.inventory());
+    call(new InventoryClickEvent(view, InventoryType.SlotType.CONTAINER, 13, ClickType.LEFT,
+        InventoryAction.PLACE_ALL));
+  }
+
+  private void restock(BenchmarkShops.Shop shop, PlayerMock owner) {
+    shop.inventory().clear();
+    shop.inventory().addItem(new ItemStack(Material.STONE, 64));
+    owner.setItemOnCursor(null);
+    InventoryView view = owner.openInventory(shop.inventory());
+    call(new InventoryClickEvent(view, InventoryType.SlotType.CONTAINER, 13, ClickType.LEFT,
+        InventoryAction.PLACE_ALL));
+  }
+
+  private void call(Event event) {
+    measure(() -> server.getServer().getPluginManager().callEvent(event));
+  }
+
+  private void measure(Runnable pluginWork) {
+    long bytes = threads.getCurrentThreadAllocatedBytes();
+    long start = System.nanoTime();
+    pluginWork.run();
+    pluginNanos += System.nanoTime() - start;
+    pluginBytes += threads.getCurrentThreadAllocatedBytes() - bytes;
+  }
+
+  private void report(Result result) {
+    TickStats nanos = result.tickNanos();
+    TickStats bytes = result.tickBytes();
+    long events = fired.values().stream().mapToLong(Long::longValue).sum();
+    System.out.printf("%d shops, %d players, %d ticks, %d events per tick%n", config.shops(),
+        config.players(), result.ticks(), config.eventsPerTick());
+    System.out.printf("events fired: %s%n", fired);
+    System.out.printf("plugin time per tick: p50 %.3f ms, p90 %.3f ms, p99 %.3f ms, max %.3f ms, "
+            + "%.2f%% of the tick budget at p99%n", nanos.percentile(50) / 1e6,
+        nanos.percentile(90) / 1e6, nanos.percentile(99) / 1e6, nanos.max() / 1e6,
+        100.0 * nanos.percentile(99) / TICK_NANOS);
+    System.out.printf("allocations per tick: p50 %d KiB, p99 %d KiB, total %d MiB%n",
+        bytes.percentile(50) / 1024, bytes.percentile(99) / 1024, bytes.sum() / (1024 * 1024));
+    System.out.printf("throughput: %.0f events per second of plugin time%n",
+        events / Math.max(1e-9, nanos.sum() / 1e9));
+  }
+
+  private record Result(int ticks, TickStats tickNanos, TickStats tickBytes) {
+  }
+}
@@ -0,0 +1,44 @@
+package com.github.sowasvonbot.load;
+
+import java.util.Arrays;
+
+/**
+ * Measured values of every tick, e.g. the plugin time or the allocated bytes.
+ */
+class TickStats {
+
+  private final long[] values;
+  private int size = 0;
+
+  TickStats(int ticks) {
+    values = new long[ticks];
+  }
+
+  void add(long value) {
+    values[size++] = value;
+  }
+
+  long sum() {
+    return Arrays.stream(values, 0, size).sum();
+  }
+
+  /**
+   * Returns the value, which the given share of all ticks did not exceed.
+   *
+   * @param percentile between 0 and 100
+   * @return the value at the percentile, 0 without ticks
+   */
+  long percentile(double percentile) {
+    if (size == 0) {
+      return 0;
+    }
+    long[] sorted = Arrays.copyOf(values, size);
+    Arrays.sort(sorted);
+    int index = (int) Math.ceil(percentile / 100 * size) - 1;
+    return sorted[Math.max(0, Math.min(size - 1, index))];
+  }
+
+  long max() {
+    return percentile(100);
+  }
+}
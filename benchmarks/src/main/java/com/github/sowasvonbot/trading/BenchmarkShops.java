@@ -0,0 +1,75 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.coin.Coin;
+import com.github.sowasvonbot.util.ConfigHolder;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockFace;
+import org.bukkit.block.Chest;
+import org.bukkit.block.Sign;
+import org.bukkit.block.data.type.WallSign;
+import org.bukkit.inventory.Inventory;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Builds trade chests for the benchmarks the same way a player does: a chest, a wall sign with
+ * the trading prefix and the item to sell.
+ */
+public class BenchmarkShops {
+
+  private BenchmarkShops() {
+  }
+
+  /**
+   * Places a trade chest at the given column of the world.
+   *
+   * @param world  the {@link World} to build in
+   * @param x      x coordinate of the chest
+   * @param z      z coordinate of the chest, the sign is placed south of it
+   * @param owner  the owner of the shop
+   * @param item   the {@link ItemStack} to sell, its amount is the amount sold per price
+   * @param price  the price in coins
+   * @return the created {@link Shop}
+   */
+  public static Shop create(World world, int x, int z, OfflinePlayer owner, ItemStack item,
+      int price) {
+    Block tradingBlock = world.getBlockAt(x, 64, z);
+    tradingBlock.setType(Material.CHEST);
+    Block signBlock = tradingBlock.getRelative(BlockFace.SOUTH);
+    WallSign signData = (WallSign) Material.OAK_WALL_SIGN.createBlockData();
+    signData.setFacing(BlockFace.SOUTH);
+    signBlock.setBlockData(signData);
+
+    Sign sign = (Sign) signBlock.getState();
+    sign.setLine(0, ConfigHolder.getInstance()
+        .getValue(ConfigHolder.ConfigField.STORAGE_CHEST_PREFIX, String.class));
+    if (!TradeSign.makeSignTradeSign(sign, owner, item)) {
+      throw new IllegalStateException(String.format("Could not create shop at %d, %d", x, z));
+    }
+    sign.update(true);
+    TradeSign.changePrice(sign, Coin.createItemStack(), price);
+    return new Shop(tradingBlock, sign, ((Chest) tradingBlock.getState()).getInventory());
+  }
+
+  /**
+   * Returns the items the shop can still sell.
+   *
+   * @param shop the {@link Shop} to check
+   * @return the stored amount
+   */
+  public static int getStock(Shop shop) {
+    return TradeSign.getModel(shop.tradingBlock()).map(TradeSignModel::amount).orElse(0);
+  }
+
+  /**
+   * A created trade chest.
+   *
+   * @param tradingBlock the chest
+   * @param sign         the trading {@link Sign}
+   * @param inventory    the {@link Inventory} of the chest, used for all trades
+   */
+  public record Shop(Block tradingBlock, Sign sign, Inventory inventory) {
+  }
+}
@@ -0,0 +1,57 @@
+package com.github.sowasvonbot.trading;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Dynamic pricing of one shop. Every operation advances the clock by the given ticks and sells
+ * one lot, like a shop with steady demand. The engine runs on its own clock, no server needed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PricingEngineBenchmark {
+
+  @Param({"1", "200"})
+  public int ticksBetweenSales;
+
+  private long tick;
+  private PricingEngine engine;
+  private PricingState state;
+
+  /**
+   * Creates an engine with the defaults of the config.yml.
+   */
+  @Setup(Level.Iteration)
+  public void setUp() {
+    tick = 0;
+    engine = new PricingEngine(() -> tick, 72000, 0.05, 0.01, 0.5, 3);
+    state = engine.initialState();
+  }
+
+  /**
+   * Sells one lot and prices the next one.
+   *
+   * @return the price of the next lot
+   */
+  @Benchmark
+  public int sellAndPrice() {
+    tick += ticksBetweenSales;
+    state = engine.recordSale(state, 1);
+    return engine.getPrice(100, state, 500);
+  }
+}
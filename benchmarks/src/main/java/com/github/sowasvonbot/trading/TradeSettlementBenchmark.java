@@ -0,0 +1,93 @@
+package com.github.sowasvonbot.trading;
+
+import be.seeseemelk.mockbukkit.entity.PlayerMock;
+import com.github.sowasvonbot.BenchmarkServer;
+import com.github.sowasvonbot.coin.Coin;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Material;
+import org.bukkit.inventory.ItemStack;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * One complete trade: the coins inside the trade chest are counted and removed, the items are
+ * handed out and the owner is paid. The chest is refilled with coins before every trade.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeSettlementBenchmark {
+
+  private static final int STOCK = 27 * 64;
+
+  @Param({"1", "64", "640"})
+  public int lots;
+
+  private BenchmarkServer server;
+  private PlayerMock owner;
+  private PlayerMock buyer;
+  private BenchmarkShops.Shop shop;
+
+  /**
+   * Starts the server and builds one shop selling one stone per coin.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    server = BenchmarkServer.start();
+    owner = server.getServer().addPlayer("owner");
+    buyer = server.getServer().addPlayer("buyer");
+    shop = BenchmarkShops.create(server.getWorld(), 0, 0, owner, new ItemStack(Material.STONE),
+        1);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    server.stop();
+  }
+
+  /**
+   * Empties the chest, restocks the shop if needed and puts the payment into the chest. Not part
+   * of the measurement.
+   */
+  @Setup(Level.Invocation)
+  public void prepareTrade() {
+    shop.inventory().clear();
+    if (BenchmarkShops.getStock(shop) < lots) {
+      for (int i = 0; i < STOCK / 64; i++) {
+        shop.inventory().addItem(new ItemStack(Material.STONE, 64));
+      }
+      TradeSign.restock(shop.tradingBlock(), shop.inventory(), owner);
+      server.tick();
+      shop.inventory().clear();
+    }
+    long payment = lots;
+    while (payment > 0) {
+      ItemStack coins = Coin.createChange(payment);
+      payment -= (long) coins.getAmount() * Coin.getValue(coins);
+      shop.inventory().addItem(coins);
+    }
+  }
+
+  /**
+   * Settles the trade, it runs in the next tick like on a server.
+   */
+  @Benchmark
+  public void settleTrade() {
+    TradeSign.makeTrade(shop.tradingBlock(), shop.inventory(), buyer);
+    server.tick();
+  }
+}
@@ -0,0 +1,41 @@
+package com.github.sowasvonbot.trading;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Calculation of the largest possible transaction, no server needed.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TransactionBenchmark {
+
+  @Param({"64", "1728", "100000"})
+  public int stored;
+
+  @Param({"1", "7"})
+  public int price;
+
+  @Param({"1", "16"})
+  public int pieces;
+
+  public int coins = 1728;
+
+  @Benchmark
+  public Transaction maximumPossibleTransaction() {
+    return Transaction.getMaximumPossibleTransactions(stored, price, pieces, coins);
+  }
+}
@@ -0,0 +1,92 @@
+package com.github.sowasvonbot.util;
+
+import com.github.sowasvonbot.BenchmarkServer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.bukkit.Material;
+import org.bukkit.enchantments.Enchantment;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Encoding and decoding of trade items, binary format against the legacy base64 format. The setup
+ * prints the stored size of both formats, since the smaller item data was the reason for the
+ * binary format.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ItemConverterBenchmark {
+
+  @Param({"plain", "enchanted"})
+  public String item;
+
+  private BenchmarkServer server;
+  private ItemStack itemStack;
+  private byte[] binary;
+  private String legacy;
+
+  /**
+   * Starts the server and encodes the item once for the decode benchmarks and the size table.
+   */
+  @Setup(Level.Trial)
+  public void setUp() {
+    server = BenchmarkServer.start();
+    itemStack = new ItemStack(Material.DIAMOND_SWORD, 1);
+    if (item.equals("enchanted")) {
+      ItemMeta itemMeta = itemStack.getItemMeta();
+      itemMeta.setDisplayName("Sword of the benchmark");
+      itemMeta.setLore(List.of("first line of lore", "second line of lore"));
+      itemMeta.addEnchant(Enchantment.DAMAGE_ALL, 5, true);
+      itemStack.setItemMeta(itemMeta);
+    }
+    binary = ItemConverter.convertToBytes(itemStack).orElseThrow();
+    legacy = ItemConverter.convertToBase64(itemStack).orElseThrow();
+    int legacyBytes = legacy.getBytes(StandardCharsets.UTF_8).length;
+    System.out.printf("%n%-10s %12s %12s %8s%n", "item", "binary [B]", "legacy [B]", "ratio");
+    System.out.printf("%-10s %12d %12d %8.2f%n", item, binary.length, legacyBytes,
+        (double) binary.length / legacyBytes);
+  }
+
+  @TearDown(Level.Trial)
+  public void tearDown() {
+    server.stop();
+  }
+
+  @Benchmark
+  public byte[] encodeBinary() {
+    return ItemConverter.convertToBytes(itemStack).orElseThrow();
+  }
+
+  @Benchmark
+  public String encodeLegacy() {
+    return ItemConverter.convertToBase64(itemStack).orElseThrow();
+  }
+
+  @Benchmark
+  public ItemStack decodeBinary() {
+    return ItemConverter.convertToItem(binary);
+  }
+
+  @Benchmark
+  public ItemStack decodeLegacy() {
+    return ItemConverter.convertToItem(legacy);
+  }
+}
@@ -2,16 +2,32 @@ package com.github.sowasvonbot;
 
 import com.github.sowasvonbot.coin.Coin;
 import com.github.sowasvonbot.coin.CoinListener;
+import com.github.sowasvonbot.coin.CoinSupply;
+import com.github.sowasvonbot.coin.storage.CoinBuffer;
+import com.github.sowasvonbot.coin.storage.CoinChestListener;
 import com.github.sowasvonbot.coin.storage.CoinCommands;
 import com.github.sowasvonbot.coin.storage.CoinSignListener;
 import com.github.sowasvonbot.coin.storage.PlayerJoinListener;
+import com.github.sowasvonbot.timings.Timings;
 import com.github.sowasvonbot.trading.ChestListener;
+import com.github.sowasvonbot.trading.DirtyTradeSigns;
+import com.github.sowasvonbot.trading.PricingClock;
+import com.github.sowasvonbot.trading.PricingEngine;
+import com.github.sowasvonbot.trading.ShopFinder;
 import com.github.sowasvonbot.trading.SignListener;
 import com.github.sowasvonbot.trading.TradeBlockBreakListener;
+import com.github.sowasvonbot.trading.TradeSignIndex;
+import com.github.sowasvonbot.trading.TradeSignIndexListener;
+import com.github.sowasvonbot.trading.ledger.TradeLedger;
+import com.github.sowasvonbot.trading.stats.ShopStatistics;
+import com.github.sowasvonbot.util.ConfigHolder;
+import com.github.sowasvonbot.util.ConfigSnapshot;
 import com.github.sowasvonbot.util.ResourcePackResolver;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import java.util.logging.Logger;
+import javax.annotation.Nullable;
 import org.bukkit.plugin.java.JavaPlugin;
+import org.bukkit.scheduler.BukkitTask;
 
 /**
  * Main plugin class.
@@ -19,6 +35,10 @@ import org.bukkit.plugin.java.JavaPlugin;
 public class RealCoinsPlugin extends JavaPlugin {
 
   @SuppressFBWarnings("MS_CANNOT_BE_FINAL") public static RealCoinsPlugin COINS_PLUGIN;
+  private static final long STATISTICS_SAVE_INTERVAL = 20 * 60 * 5;
+
+  private @Nullable BukkitTask supplyTask;
+  private @Nullable BukkitTask metricsTask;
 
   public static Logger getPluginLogger() {
     return COINS_PLUGIN.getLogger();
@@ -32,23 +52,85 @@ public class RealCoinsPlugin extends JavaPlugin {
 
     getServer().addRecipe(Coin.getRecipe());
     getServer().addRecipe(Coin.getCraftBackRecipe());
-    getServer().getPluginManager().registerEvents(new CoinListener(), this);
+    Timings.getInstance().registerEvents(new CoinListener(), this);
+
+    Timings.getInstance().registerEvents(new CoinSignListener(), this);
+    Timings.getInstance().registerEvents(new PlayerJoinListener(), this);
+    Timings.getInstance().registerEvents(new CoinChestListener(), this);
 
-    getServer().getPluginManager().registerEvents(new CoinSignListener(), this);
-    getServer().getPluginManager().registerEvents(new PlayerJoinListener(), this);
+    Timings.getInstance().registerEvents(new ChestListener(), this);
+    Timings.getInstance().registerEvents(new SignListener(), this);
+    Timings.getInstance().registerEvents(new TradeBlockBreakListener(), this);
+    Timings.getInstance().registerEvents(new TradeSignIndexListener(), this);
+    PricingClock.getInstance().start(this, getServer().getWorlds().get(0));
+    // loaded first, indexing the chunks drops the listings of signs removed meanwhile
+    ShopFinder.getInstance().load(getDataFolder().toPath().resolve("shops.dat"));
+    TradeSignIndex.getInstance().indexLoadedChunks(getServer());
+    TradeLedger.getInstance().open(getDataFolder().toPath().resolve("ledger"));
+    ShopStatistics.getInstance().load(getDataFolder().toPath().resolve("shopstats.dat"));
+    getServer().getScheduler().runTaskTimerAsynchronously(this, ShopStatistics.getInstance()::save,
+        STATISTICS_SAVE_INTERVAL, STATISTICS_SAVE_INTERVAL);
+    getServer().getScheduler().runTaskTimer(this, () -> ShopFinder.getInstance().save(this),
+        STATISTICS_SAVE_INTERVAL, STATISTICS_SAVE_INTERVAL);
 
-    getServer().getPluginManager().registerEvents(new ChestListener(), this);
-    getServer().getPluginManager().registerEvents(new SignListener(), this);
-    getServer().getPluginManager().registerEvents(new TradeBlockBreakListener(), this);
+    Timings.getInstance().registerEvents(new ResourcePackResolver(), this);
 
-    getServer().getPluginManager().registerEvents(new ResourcePackResolver(), this);
+    CoinSupply.getInstance().load(getDataFolder().toPath().resolve("supply.dat"));
+    // opening the buffer counts the buffered coins of the supply
+    CoinBuffer.getInstance();
+    Timings.getInstance().setFile(getDataFolder().toPath().resolve("metrics.prom"));
+    scheduleFileTimers();
 
     CoinCommands.register();
   }
 
+  /**
+   * (Re)starts the timers writing the supply and metrics files with the configured intervals.
+   */
+  private void scheduleFileTimers() {
+    if (supplyTask != null) {
+      supplyTask.cancel();
+    }
+    if (metricsTask != null) {
+      metricsTask.cancel();
+      metricsTask = null;
+    }
+    ConfigSnapshot config = ConfigHolder.getInstance().getSnapshot();
+    long supplyInterval = config.getInt(ConfigHolder.ConfigField.SUPPLY_SNAPSHOT_INTERVAL) * 20L;
+    supplyTask = getServer().getScheduler().runTaskTimerAsynchronously(this,
+        CoinSupply.getInstance()::save, supplyInterval, supplyInterval);
+    long metricsInterval = config.getInt(ConfigHolder.ConfigField.METRICS_FILE_INTERVAL) * 20L;
+    if (metricsInterval > 0) {
+      metricsTask = getServer().getScheduler().runTaskTimerAsynchronously(this,
+          Timings.getInstance()::save, metricsInterval, metricsInterval);
+    }
+  }
+
+  /**
+   * Reloads the config.yml and rebuilds everything derived from it, e.g. the coin and its recipes.
+   */
+  public void reloadConfiguration() {
+    ConfigHolder.getInstance().reload();
+    getServer().removeRecipe(Coin.getRecipe().getKey());
+    getServer().removeRecipe(Coin.getCraftBackRecipe().getKey());
+    Coin.reload();
+    PricingEngine.reload();
+    getServer().addRecipe(Coin.getRecipe());
+    getServer().addRecipe(Coin.getCraftBackRecipe());
+    scheduleFileTimers();
+  }
+
   @Override
   public void onDisable() {
     getPluginLogger().info("Coin stopped");
+    DirtyTradeSigns.getInstance().flushAll();
+    PricingClock.getInstance().save();
+    TradeLedger.getInstance().close();
+    CoinSupply.getInstance().save();
+    CoinBuffer.close();
+    ShopStatistics.getInstance().save();
+    ShopFinder.getInstance().save(null);
+    Timings.getInstance().save();
     getServer().removeRecipe(Coin.getRecipe().getKey());
     getServer().removeRecipe(Coin.getCraftBackRecipe().getKey());
   }
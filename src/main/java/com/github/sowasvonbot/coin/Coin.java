@@ -7,13 +7,20 @@ import com.github.sowasvonbot.util.ConfigHolder;
 import com.mojang.authlib.GameProfile;
 import com.mojang.authlib.properties.Property;
 import java.lang.reflect.Field;
-import java.util.Locale;
-import java.util.Objects;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.bukkit.Location;
 import org.bukkit.Material;
 import org.bukkit.NamespacedKey;
 import org.bukkit.inventory.FurnaceRecipe;
+import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
 import org.bukkit.inventory.Recipe;
 import org.bukkit.inventory.RecipeChoice;
@@ -23,11 +30,16 @@ import org.bukkit.inventory.meta.SkullMeta;
 import org.bukkit.persistence.PersistentDataType;
 
 /**
- * Provides methods for coin checks and creation.
+ * Provides methods for coin checks and creation. Besides the unit coin, coins of the configured
+ * denominations exist. Their value is stored in the persistent data of the coin, amounts are paid
+ * with as few coins as possible.
  */
 public class Coin {
 
   private static Material coinItemMaterial;
+  private static int[] denominations;
+  private static final Map<Integer, ItemStack> templates = new HashMap<>();
+  private static Field profileField;
 
   private static final NamespacedKey craftRecipeKey =
       requireNonNull(NamespacedKey.fromString("coin_easy", RealCoinsPlugin.COINS_PLUGIN));
@@ -36,22 +48,25 @@ public class Coin {
       requireNonNull(NamespacedKey.fromString("coin_back"));
 
   /**
-   * Creates an item stack of coins.
+   * Creates an item stack of coins. The stack is a copy of the prebuilt coin template.
    *
    * @param amount amount of coins
    * @return {@link ItemStack} with special coins
    */
   public static ItemStack createItemStack(int amount) {
-    ItemStack coin = createCoinItemStack(amount);
-    ItemMeta itemMeta = coin.getItemMeta();
-    if (itemMeta == null) {
-      throw new IllegalStateException("Can not create coin due to missing item meta");
-    }
-    itemMeta.getPersistentDataContainer()
-        .set(Constants.COIN_KEY, PersistentDataType.STRING, Constants.COIN_KEY_VALUE);
-    itemMeta.setDisplayName(ConfigHolder.getInstance()
-        .getValue(ConfigHolder.ConfigField.COIN_DISPLAY_NAME, String.class));
-    coin.setItemMeta(itemMeta);
+    return createItemStack(amount, 1);
+  }
+
+  /**
+   * Creates an item stack of coins of the given denomination.
+   *
+   * @param amount amount of coins
+   * @param value  value of one coin, one of the configured denominations
+   * @return {@link ItemStack} with special coins
+   */
+  public static ItemStack createItemStack(int amount, int value) {
+    ItemStack coin = getTemplate(value).clone();
+    coin.setAmount(amount);
     return coin;
   }
 
@@ -59,6 +74,26 @@ public class Coin {
     return createItemStack(1);
   }
 
+  /**
+   * Creates one stack of the largest denomination fitting into the given amount. Paying an amount
+   * means creating stacks until the amount is used up.
+   *
+   * @param amount the amount to pay, greater than 0
+   * @return {@link ItemStack} with coins worth at most the given amount
+   */
+  public static ItemStack createChange(long amount) {
+    int value = 1;
+    for (int denomination : getDenominations()) {
+      if (denomination <= amount) {
+        value = denomination;
+        break;
+      }
+    }
+    ItemStack coin = getTemplate(value).clone();
+    coin.setAmount((int) Math.min(amount / value, coin.getMaxStackSize()));
+    return coin;
+  }
+
   /**
    * Checks if the given ItemStack contains only coins.
    *
@@ -66,11 +101,86 @@ public class Coin {
    * @return true, if the {@link ItemStack} contains only coins
    */
   public static boolean isCoin(ItemStack itemStack) {
-    if (Objects.isNull(itemStack) || Objects.isNull(itemStack.getItemMeta())) {
-      return false;
+    return CoinMatcher.isCoin(itemStack, getCoinItemMaterial());
+  }
+
+  /**
+   * Returns the value of one coin of the given stack.
+   *
+   * @param itemStack the {@link ItemStack} to check
+   * @return the value of one item, 0 if the item is no coin
+   */
+  public static int getValue(@Nullable ItemStack itemStack) {
+    return CoinMatcher.getValue(itemStack, getCoinItemMaterial());
+  }
+
+  /**
+   * Sums the value of all coins inside the inventory.
+   *
+   * @param inventory the {@link Inventory} to count
+   * @return the value of all coins
+   */
+  public static long countValue(Inventory inventory) {
+    long value = 0;
+    for (ItemStack itemStack : inventory.getStorageContents()) {
+      value += (long) getValue(itemStack) * (itemStack == null ? 0 : itemStack.getAmount());
+    }
+    return value;
+  }
+
+  /**
+   * Removes coins worth the given amount from the inventory. Large coins are taken first. If the
+   * amount can not be paid exactly, the smallest larger coin is taken and the difference is put
+   * back into the inventory as change. Change not fitting into the inventory is dropped.
+   *
+   * @param inventory the {@link Inventory} to take the coins from
+   * @param amount    the amount to remove
+   * @return the removed value, less than the amount if the inventory does not hold enough coins
+   */
+  public static long withdraw(Inventory inventory, long amount) {
+    List<CoinStack> coins = new ArrayList<>();
+    for (ItemStack itemStack : inventory.getStorageContents()) {
+      int value = getValue(itemStack);
+      if (value > 0) {
+        coins.add(new CoinStack(itemStack, value));
+      }
+    }
+    coins.sort(Comparator.comparingInt(CoinStack::value).reversed());
+    long remaining = amount;
+    for (CoinStack coin : coins) {
+      if (remaining == 0) {
+        break;
+      }
+      int taken = (int) Math.min(coin.itemStack().getAmount(), remaining / coin.value());
+      coin.itemStack().setAmount(coin.itemStack().getAmount() - taken);
+      remaining -= (long) taken * coin.value();
+    }
+    if (remaining > 0) {
+      // every coin left is larger than the remaining amount, break the smallest one
+      for (int i = coins.size() - 1; i >= 0; i--) {
+        CoinStack coin = coins.get(i);
+        if (coin.itemStack().getAmount() > 0 && coin.value() > remaining) {
+          coin.itemStack().setAmount(coin.itemStack().getAmount() - 1);
+          deposit(inventory, coin.value() - remaining);
+          remaining = 0;
+          break;
+        }
+      }
+    }
+    return amount - remaining;
+  }
+
+  private static void deposit(Inventory inventory, long amount) {
+    Location location = inventory.getLocation();
+    while (amount > 0) {
+      ItemStack change = createChange(amount);
+      amount -= (long) change.getAmount() * getValue(change);
+      for (ItemStack remaining : inventory.addItem(change).values()) {
+        if (location != null && location.getWorld() != null) {
+          location.getWorld().dropItemNaturally(location, remaining);
+        }
+      }
     }
-    return itemStack.getItemMeta().getPersistentDataContainer()
-        .has(Constants.COIN_KEY, PersistentDataType.STRING);
   }
 
   /**
@@ -81,8 +191,7 @@ public class Coin {
   public static ShapedRecipe getRecipe() {
     ShapedRecipe coinRecipe = new ShapedRecipe(craftRecipeKey, Coin.createItemStack(
         ConfigHolder.getInstance()
-            .getValue(ConfigHolder.ConfigField.COIN_RECIPE_AMOUNT, Integer.class,
-                (amount) -> amount > 0 && amount <= 64)));
+            .getValue(ConfigHolder.ConfigField.COIN_RECIPE_AMOUNT, Integer.class)));
     String recipeShape = ConfigHolder.getInstance()
         .getValue(ConfigHolder.ConfigField.COIN_RECIPE_SHAPE, String.class);
 
@@ -113,10 +222,57 @@ public class Coin {
 
     return new FurnaceRecipe(craftBackRecipeKey, new ItemStack(Material.GOLD_INGOT, 3),
         recipeChoice, ConfigHolder.getInstance()
-        .getValue(ConfigHolder.ConfigField.COIN_SMELT_EXP, Integer.class,
-            (smeltExp) -> smeltExp >= 0), ConfigHolder.getInstance()
-        .getValue(ConfigHolder.ConfigField.COIN_SMELT_TIME, Integer.class,
-            (smeltTime) -> smeltTime >= 0));
+        .getValue(ConfigHolder.ConfigField.COIN_SMELT_EXP, Integer.class),
+        ConfigHolder.getInstance()
+            .getValue(ConfigHolder.ConfigField.COIN_SMELT_TIME, Integer.class));
+  }
+
+  /**
+   * Drops the cached coin template and material, so both are rebuilt from the current config.
+   */
+  public static void reload() {
+    coinItemMaterial = null;
+    denominations = null;
+    templates.clear();
+  }
+
+  private static int[] getDenominations() {
+    if (denominations == null) {
+      // descending, the config guarantees the unit coin
+      denominations = Arrays.stream(ConfigHolder.getInstance()
+              .getValue(ConfigHolder.ConfigField.COIN_DENOMINATIONS, String.class).split(","))
+          .map(String::trim).mapToInt(Integer::parseInt).map(value -> -value).sorted().distinct()
+          .map(value -> -value).toArray();
+    }
+    return denominations;
+  }
+
+  private static ItemStack getTemplate(int value) {
+    ItemStack template = templates.get(value);
+    if (template == null) {
+      ItemStack coin = createCoinItemStack();
+      ItemMeta itemMeta = coin.getItemMeta();
+      if (itemMeta == null) {
+        throw new IllegalStateException("Can not create coin due to missing item meta");
+      }
+      itemMeta.getPersistentDataContainer()
+          .set(Constants.COIN_KEY, PersistentDataType.STRING, Constants.COIN_KEY_VALUE);
+      if (value == 1) {
+        // unit coins stay without value, so they stack with coins minted before denominations
+        itemMeta.setDisplayName(ConfigHolder.getInstance()
+            .getValue(ConfigHolder.ConfigField.COIN_DISPLAY_NAME, String.class));
+      } else {
+        itemMeta.getPersistentDataContainer()
+            .set(Constants.VALUE_KEY, PersistentDataType.INTEGER, value);
+        itemMeta.setDisplayName(String.format(ConfigHolder.getInstance()
+            .getValue(ConfigHolder.ConfigField.COIN_DENOMINATION_DISPLAY_NAME, String.class),
+            value));
+      }
+      coin.setItemMeta(itemMeta);
+      template = coin;
+      templates.put(value, template);
+    }
+    return template;
   }
 
   private static Material getCoinItemMaterial() {
@@ -126,20 +282,19 @@ public class Coin {
         coinItemMaterial = Material.PLAYER_HEAD;
       } else {
         String materialString = ConfigHolder.getInstance()
-            .getValue(ConfigHolder.ConfigField.COIN_ITEM_MATERIAL, String.class,
-                (material) -> Material.matchMaterial(material.toUpperCase(Locale.ROOT)) != null);
+            .getValue(ConfigHolder.ConfigField.COIN_ITEM_MATERIAL, String.class);
         coinItemMaterial = Material.matchMaterial(materialString);
       }
     }
     return coinItemMaterial;
   }
 
-  private static ItemStack createCoinItemStack(int amount) {
+  private static ItemStack createCoinItemStack() {
     Material material = getCoinItemMaterial();
     if (material != Material.PLAYER_HEAD) {
-      return new ItemStack(material, amount);
+      return new ItemStack(material, 1);
     }
-    ItemStack headItemstack = new ItemStack(Material.PLAYER_HEAD, amount);
+    ItemStack headItemstack = new ItemStack(Material.PLAYER_HEAD, 1);
     SkullMeta skullMeta = (SkullMeta) headItemstack.getItemMeta();
 
     GameProfile gameProfile = new GameProfile(UUID.fromString(ConfigHolder.getInstance()
@@ -148,8 +303,10 @@ public class Coin {
         .getValue(ConfigHolder.ConfigField.COIN_HEAD_VALUE, String.class)));
 
     try {
-      Field profileField = skullMeta.getClass().getDeclaredField("profile");
-      profileField.setAccessible(true);
+      if (profileField == null || profileField.getDeclaringClass() != skullMeta.getClass()) {
+        profileField = skullMeta.getClass().getDeclaredField("profile");
+        profileField.setAccessible(true);
+      }
       profileField.set(skullMeta, gameProfile);
     } catch (NoSuchFieldException
              | IllegalAccessException e) {
@@ -160,4 +317,7 @@ public class Coin {
     headItemstack.setItemMeta(skullMeta);
     return headItemstack;
   }
+
+  private record CoinStack(ItemStack itemStack, int value) {
+  }
 }
@@ -1,17 +1,25 @@
 package com.github.sowasvonbot.coin;
 
+import com.github.sowasvonbot.RealCoinsPlugin;
 import com.github.sowasvonbot.trading.TradeSign;
 import com.github.sowasvonbot.util.ConfigHolder;
 import java.util.Objects;
+import javax.annotation.Nullable;
+import org.bukkit.Bukkit;
 import org.bukkit.Material;
 import org.bukkit.block.Furnace;
+import org.bukkit.entity.HumanEntity;
 import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
 import org.bukkit.event.Listener;
 import org.bukkit.event.block.Action;
+import org.bukkit.event.inventory.CraftItemEvent;
 import org.bukkit.event.inventory.FurnaceBurnEvent;
 import org.bukkit.event.inventory.FurnaceSmeltEvent;
 import org.bukkit.event.player.PlayerInteractEvent;
 import org.bukkit.event.player.PlayerItemConsumeEvent;
+import org.bukkit.inventory.CraftingInventory;
+import org.bukkit.inventory.ItemStack;
 
 /**
  * Listener for coins. Mainly used to prevent placing coins in the world.
@@ -57,6 +65,63 @@ public class CoinListener implements Listener {
     event.setCancelled(!Coin.isCoin(event.getSource()));
   }
 
+  /**
+   * Counts the coins burned by smelting.
+   *
+   * @param event {@link FurnaceSmeltEvent}, which was not cancelled by any listener
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void countBurnedCoin(FurnaceSmeltEvent event) {
+    int value = Coin.getValue(event.getSource());
+    if (value > 0) {
+      CoinSupply.getInstance().recordBurned(value);
+    }
+  }
+
+  /**
+   * Counts the coins minted by crafting. How often a click crafts depends on the click type and the
+   * free space of the player, so the used up ingredients are counted one tick later instead. If the
+   * crafting inventory is closed in the same tick, one craft is counted.
+   *
+   * @param event {@link CraftItemEvent}, which was not cancelled by any listener
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void countMintedCoins(CraftItemEvent event) {
+    ItemStack result = event.getRecipe().getResult();
+    int value = Coin.getValue(result);
+    if (value <= 0) {
+      return;
+    }
+    CraftingInventory inventory = event.getInventory();
+    ItemStack[] matrix = inventory.getMatrix();
+    int slot = 0;
+    while (slot < matrix.length && isEmpty(matrix[slot])) {
+      slot++;
+    }
+    if (slot == matrix.length) {
+      return;
+    }
+    final int ingredientSlot = slot;
+    final ItemStack ingredient = matrix[slot].clone();
+    final HumanEntity crafter = event.getWhoClicked();
+    Bukkit.getScheduler().runTask(RealCoinsPlugin.COINS_PLUGIN, () -> {
+      int crafts = 1;
+      // a closed inventory returned its ingredients to the player
+      if (crafter.getOpenInventory().getTopInventory() == inventory) {
+        ItemStack remaining = inventory.getMatrix()[ingredientSlot];
+        crafts = ingredient.getAmount()
+            - (ingredient.isSimilar(remaining) ? remaining.getAmount() : 0);
+      }
+      if (crafts > 0) {
+        CoinSupply.getInstance().recordMinted((long) crafts * result.getAmount() * value);
+      }
+    });
+  }
+
+  private static boolean isEmpty(@Nullable ItemStack itemStack) {
+    return itemStack == null || itemStack.getType().isAir();
+  }
+
   /**
    * Prevents the lighting of all poisonous potatoes except coins.
    *
@@ -0,0 +1,119 @@
+package com.github.sowasvonbot.coin;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.WrongMethodTypeException;
+import java.lang.reflect.Method;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.bukkit.Material;
+import org.bukkit.NamespacedKey;
+import org.bukkit.inventory.ItemStack;
+import org.bukkit.inventory.meta.ItemMeta;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+/**
+ * Fast check for the coin marker. Items of another {@link Material} than the coin are rejected
+ * without touching their meta. On servers offering a read-only view on the persistent data of an
+ * {@link ItemStack} (e.g. Paper), the marker is read without copying the meta at all, otherwise the
+ * meta is copied once.
+ */
+class CoinMatcher {
+
+  // null on Spigot and after the first failed call
+  private static volatile @Nullable DataViewHandles dataViewHandles;
+
+  static {
+    try {
+      Method getter = ItemStack.class.getMethod("getPersistentDataContainer");
+      Method has = getter.getReturnType()
+          .getMethod("has", NamespacedKey.class, PersistentDataType.class);
+      Method get = getter.getReturnType()
+          .getMethod("get", NamespacedKey.class, PersistentDataType.class);
+      MethodHandles.Lookup lookup = MethodHandles.publicLookup();
+      dataViewHandles = new DataViewHandles(lookup.unreflect(getter), lookup.unreflect(has),
+          lookup.unreflect(get));
+    } catch (NoSuchMethodException | IllegalAccessException e) {
+      // Spigot, the meta has to be copied
+    }
+  }
+
+  /**
+   * Handles of the read-only persistent data view of an {@link ItemStack}.
+   */
+  private record DataViewHandles(MethodHandle getDataView, MethodHandle hasKey,
+                                 MethodHandle getKey) {
+  }
+
+  private CoinMatcher() {
+  }
+
+  /**
+   * Checks if the given item is a coin.
+   *
+   * @param itemStack    {@link ItemStack} to check, might be null
+   * @param coinMaterial {@link Material} every coin is made of
+   * @return true, if the item carries the coin marker
+   */
+  static boolean isCoin(@Nullable ItemStack itemStack, Material coinMaterial) {
+    return getValue(itemStack, coinMaterial) > 0;
+  }
+
+  /**
+   * Returns the value of one item of the given stack. Coins without a value are worth one coin.
+   *
+   * @param itemStack    {@link ItemStack} to check, might be null
+   * @param coinMaterial {@link Material} every coin is made of
+   * @return the value of one item, 0 if the item is no coin
+   */
+  static int getValue(@Nullable ItemStack itemStack, Material coinMaterial) {
+    if (itemStack == null || itemStack.getType() != coinMaterial || !itemStack.hasItemMeta()) {
+      return 0;
+    }
+    DataViewHandles handles = dataViewHandles;
+    if (handles != null) {
+      try {
+        Object dataView = handles.getDataView().invoke(itemStack);
+        if (!(boolean) handles.hasKey()
+            .invoke(dataView, Constants.COIN_KEY, PersistentDataType.STRING)) {
+          return 0;
+        }
+        return toValue((Integer) handles.getKey()
+            .invoke(dataView, Constants.VALUE_KEY, PersistentDataType.INTEGER));
+      } catch (WrongMethodTypeException | ClassCastException e) {
+        // the view has another signature than expected, fall through to the copying check
+        disableDataView(handles, e);
+      } catch (RuntimeException | Error e) {
+        throw e;
+      } catch (Throwable e) {
+        // the viewed methods declare no checked exceptions
+        throw new IllegalStateException(e);
+      }
+    }
+    ItemMeta itemMeta = itemStack.getItemMeta();
+    if (itemMeta == null) {
+      return 0;
+    }
+    PersistentDataContainer dataContainer = itemMeta.getPersistentDataContainer();
+    if (!dataContainer.has(Constants.COIN_KEY, PersistentDataType.STRING)) {
+      return 0;
+    }
+    return toValue(dataContainer.get(Constants.VALUE_KEY, PersistentDataType.INTEGER));
+  }
+
+  private static synchronized void disableDataView(DataViewHandles failed, RuntimeException e) {
+    // logged once, even if several threads fail at the same time
+    if (dataViewHandles == failed) {
+      dataViewHandles = null;
+      RealCoinsPlugin.getPluginLogger().log(Level.WARNING, e,
+          () -> "Could not read coins through the persistent data view, copying item meta");
+    }
+  }
+
+  private static int toValue(@Nullable Integer value) {
+    // unit coins carry no value
+    return value == null || value < 1 ? 1 : value;
+  }
+}
@@ -16,7 +16,8 @@ public class CoinRecipeChoice extends RecipeChoice.MaterialChoice {
 
   @Override
   public boolean test(ItemStack t) {
-    return Coin.isCoin(t);
+    // only unit coins are smelted back, higher denominations would lose their value
+    return Coin.getValue(t) == 1;
   }
 
   @Override
@@ -0,0 +1,233 @@
+package com.github.sowasvonbot.coin;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.timings.Timings;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+
+/**
+ * Accounting of all coins in existence, measured in the value of unit coins. Coins are minted by
+ * crafting and burned by smelting, the coins in circulation are the difference of both. Buffered
+ * coins are part of the circulation, they only lack an item. Snapshots of the counters are
+ * appended to a small binary time series periodically.
+ */
+public class CoinSupply {
+
+  private static final int VERSION = 1;
+  private static final int RECORD_SIZE = 4 * Long.BYTES;
+  private static CoinSupply instance;
+
+  private final LongAdder minted = Timings.getInstance().counter("coins_minted");
+  private final LongAdder burned = Timings.getInstance().counter("coins_burned");
+  private final LongAdder buffered = new LongAdder();
+  private @Nullable Path file;
+  private @Nullable Snapshot lastSaved;
+
+  /**
+   * State of the coin supply at one point in time.
+   *
+   * @param timestamp long, milliseconds since the epoch
+   * @param minted    long, value of all coins ever crafted
+   * @param burned    long, value of all coins ever smelted
+   * @param buffered  long, value of all coins in the buffers of players
+   */
+  public record Snapshot(long timestamp, long minted, long burned, long buffered) {
+
+    public long circulating() {
+      return minted - burned;
+    }
+
+    private boolean sameCounters(Snapshot other) {
+      return minted == other.minted && burned == other.burned && buffered == other.buffered;
+    }
+  }
+
+  private CoinSupply() {
+  }
+
+  /**
+   * Singleton for the coin supply.
+   *
+   * @return {@link CoinSupply} of the server
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static CoinSupply getInstance() {
+    if (instance == null) {
+      instance = new CoinSupply();
+    }
+    return instance;
+  }
+
+  public void recordMinted(long value) {
+    minted.add(value);
+  }
+
+  public void recordBurned(long value) {
+    burned.add(value);
+  }
+
+  /**
+   * Records a change of the buffered coins.
+   *
+   * @param delta long, might be negative
+   */
+  public void recordBuffered(long delta) {
+    buffered.add(delta);
+  }
+
+  /**
+   * Sets the buffered coins, e.g. after the balances were read from disk.
+   *
+   * @param total long, value of all buffered coins
+   */
+  public void setBuffered(long total) {
+    buffered.reset();
+    buffered.add(total);
+  }
+
+  /**
+   * Returns the current state of the supply. Safe to call from any thread.
+   *
+   * @return the current {@link Snapshot}
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(System.currentTimeMillis(), minted.sum(), burned.sum(), buffered.sum());
+  }
+
+  /**
+   * Continues the counters of the given time series file, if it exists. Later calls of
+   * {@link #save()} append to this file.
+   *
+   * @param file {@link Path} of the time series
+   */
+  public synchronized void load(Path file) {
+    this.file = file;
+    if (!Files.exists(file)) {
+      return;
+    }
+    boolean unreadable;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ,
+        StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(Integer.BYTES);
+      unreadable = channel.read(header, 0) < Integer.BYTES || header.getInt(0) != VERSION;
+      if (!unreadable) {
+        readLastSnapshot(channel);
+      }
+    } catch (IOException e) {
+      // appending reset counters would corrupt the time series, so nothing is saved
+      this.file = null;
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> "Could not read the coin supply");
+      return;
+    }
+    if (unreadable) {
+      moveAside(file);
+    }
+  }
+
+  private void readLastSnapshot(FileChannel channel) throws IOException {
+    long records = (channel.size() - Integer.BYTES) / RECORD_SIZE;
+    // drops a record torn by a crash, so appended records stay aligned
+    channel.truncate(Integer.BYTES + records * RECORD_SIZE);
+    if (records == 0) {
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(RECORD_SIZE);
+    channel.read(buffer, Integer.BYTES + (records - 1) * RECORD_SIZE);
+    lastSaved = readSnapshot(buffer.flip());
+    minted.add(lastSaved.minted());
+    burned.add(lastSaved.burned());
+  }
+
+  /**
+   * Keeps an unknown or broken file for inspection, the next {@link #save()} starts a new one.
+   */
+  private void moveAside(Path file) {
+    Path aside = file.resolveSibling(file.getFileName() + ".bad");
+    try {
+      Files.move(file, aside, StandardCopyOption.REPLACE_EXISTING);
+      RealCoinsPlugin.getPluginLogger().warning(() -> String.format(
+          "Moved the unreadable %s to %s, starting a new time series", file, aside));
+    } catch (IOException e) {
+      this.file = null;
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> String.format("Ignoring %s", file));
+    }
+  }
+
+  /**
+   * Appends the current state to the time series, unless nothing changed since the last snapshot.
+   * Safe to call from any thread.
+   */
+  public synchronized void save() {
+    if (file == null) {
+      return;
+    }
+    Snapshot snapshot = snapshot();
+    if (lastSaved != null && lastSaved.sameCounters(snapshot)) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      boolean created = !Files.exists(file);
+      ByteBuffer buffer = ByteBuffer.allocate((created ? Integer.BYTES : 0) + RECORD_SIZE);
+      if (created) {
+        buffer.putInt(VERSION);
+      }
+      buffer.putLong(snapshot.timestamp());
+      buffer.putLong(snapshot.minted());
+      buffer.putLong(snapshot.burned());
+      buffer.putLong(snapshot.buffered());
+      Files.write(file, buffer.array(), StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+      lastSaved = snapshot;
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> "Could not write the coin supply");
+    }
+  }
+
+  /**
+   * Reads all saved snapshots since the given time. Reads the file, so better call it
+   * asynchronously.
+   *
+   * @param since long, milliseconds since the epoch
+   * @return {@link List} of {@link Snapshot}, oldest first
+   */
+  public synchronized List<Snapshot> history(long since) {
+    List<Snapshot> snapshots = new ArrayList<>();
+    if (file == null || !Files.exists(file)) {
+      return snapshots;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+      if (buffer.remaining() < Integer.BYTES || buffer.getInt() != VERSION) {
+        return snapshots;
+      }
+      while (buffer.remaining() >= RECORD_SIZE) {
+        Snapshot snapshot = readSnapshot(buffer);
+        if (snapshot.timestamp() >= since) {
+          snapshots.add(snapshot);
+        }
+      }
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> "Could not read the coin supply");
+    }
+    return snapshots;
+  }
+
+  private static Snapshot readSnapshot(ByteBuffer buffer) {
+    return new Snapshot(buffer.getLong(), buffer.getLong(), buffer.getLong(), buffer.getLong());
+  }
+}
@@ -10,4 +10,6 @@ public abstract class Constants {
   protected static final NamespacedKey COIN_KEY =
       new NamespacedKey(RealCoinsPlugin.COINS_PLUGIN, "coin");
   protected static final String COIN_KEY_VALUE = "Coin";
+  protected static final NamespacedKey VALUE_KEY =
+      new NamespacedKey(RealCoinsPlugin.COINS_PLUGIN, "coin_value");
 }
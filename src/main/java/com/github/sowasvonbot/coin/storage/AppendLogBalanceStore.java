@@ -0,0 +1,249 @@
+package com.github.sowasvonbot.coin.storage;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+
+/**
+ * {@link BalanceStore} keeping all balances in memory. Changed balances are appended to a log file
+ * by a background thread once per second, the log is compacted into a snapshot of all balances
+ * when it grew too large. On startup the log is replayed, the last record of a player wins.
+ */
+public class AppendLogBalanceStore implements BalanceStore {
+
+  /**
+   * Size of one log record: player id and balance.
+   */
+  static final int RECORD_SIZE = 2 * Long.BYTES + Long.BYTES;
+  private static final long FLUSH_INTERVAL_MILLIS = 1000;
+  private static final int MIN_COMPACTION_RECORDS = 4096;
+
+  private final Path file;
+  private final Map<UUID, Long> balances = new ConcurrentHashMap<>();
+  private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+  private final ScheduledExecutorService writer;
+  // null while closed or after a failed write, the next flush reopens the log
+  private @Nullable FileChannel channel;
+  private boolean closed = false;
+  private long records;
+
+  /**
+   * Opens the store and replays the given log file, if it exists.
+   *
+   * @param file {@link Path} of the log file
+   * @throws IOException if the log could not be read or created
+   */
+  public AppendLogBalanceStore(Path file) throws IOException {
+    this.file = file;
+    Files.createDirectories(file.toAbsolutePath().getParent());
+    replay();
+    channel = openLog();
+    writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "RealCoins-BalanceStore");
+      thread.setDaemon(true);
+      return thread;
+    });
+    writer.scheduleWithFixedDelay(this::flush, FLUSH_INTERVAL_MILLIS, FLUSH_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  @Override
+  public long getBalance(UUID playerId) {
+    return balances.getOrDefault(playerId, 0L);
+  }
+
+  @Override
+  public long getTotal() {
+    return balances.values().stream().mapToLong(Long::longValue).sum();
+  }
+
+  @Override
+  public long add(UUID playerId, long amount) {
+    long balance = balances.merge(playerId, amount, Long::sum);
+    dirty.add(playerId);
+    return balance;
+  }
+
+  @Override
+  public long clear(UUID playerId) {
+    Long balance = balances.put(playerId, 0L);
+    dirty.add(playerId);
+    return balance == null ? 0 : balance;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return balances.isEmpty();
+  }
+
+  @Override
+  public synchronized void flush() {
+    if (dirty.isEmpty() || closed) {
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(dirty.size() * RECORD_SIZE + 64 * RECORD_SIZE);
+    List<UUID> written = new ArrayList<>();
+    Iterator<UUID> iterator = dirty.iterator();
+    while (iterator.hasNext() && buffer.remaining() >= RECORD_SIZE) {
+      UUID playerId = iterator.next();
+      // remove before reading, a concurrent change marks the player dirty again
+      iterator.remove();
+      writeRecord(buffer, playerId, getBalance(playerId));
+      written.add(playerId);
+    }
+    buffer.flip();
+    try {
+      append(buffer);
+    } catch (IOException e) {
+      // the balances are written by the next flush
+      dirty.addAll(written);
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.SEVERE, e, () -> "Could not write the coin balances");
+      return;
+    }
+    records += written.size();
+    if (records > Math.max(MIN_COMPACTION_RECORDS, 4L * balances.size())) {
+      try {
+        compact();
+      } catch (IOException e) {
+        RealCoinsPlugin.getPluginLogger()
+            .log(Level.WARNING, e, () -> "Could not compact the coin balances");
+      }
+    }
+  }
+
+  /**
+   * Appends the records to the log. A failed write is cut off again, so later records stay
+   * aligned, and the log is reopened by the next call.
+   */
+  private void append(ByteBuffer buffer) throws IOException {
+    if (channel == null) {
+      channel = openLog();
+    }
+    long size = channel.size();
+    try {
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      try (FileChannel failed = channel) {
+        channel = null;
+        failed.truncate(size);
+      } catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw e;
+    }
+  }
+
+  @Override
+  public void close() {
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+        RealCoinsPlugin.getPluginLogger().warning("Balance store writer did not stop in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    flush();
+    synchronized (this) {
+      closed = true;
+      try {
+        if (channel != null) {
+          channel.close();
+        }
+      } catch (IOException e) {
+        RealCoinsPlugin.getPluginLogger()
+            .log(Level.WARNING, e, () -> "Could not close the coin balances");
+      }
+      channel = null;
+    }
+  }
+
+  private void replay() throws IOException {
+    if (!Files.exists(file)) {
+      return;
+    }
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+    // an incomplete last record was torn by a crash and is ignored
+    while (buffer.remaining() >= RECORD_SIZE) {
+      UUID playerId = new UUID(buffer.getLong(), buffer.getLong());
+      long balance = buffer.getLong();
+      if (balance == 0) {
+        balances.remove(playerId);
+      } else {
+        balances.put(playerId, balance);
+      }
+      records++;
+    }
+    if (buffer.hasRemaining()) {
+      RealCoinsPlugin.getPluginLogger().warning(
+          () -> String.format("Ignoring %d bytes at the end of %s", buffer.remaining(), file));
+      compact();
+    }
+  }
+
+  private void compact() throws IOException {
+    Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+    Map<UUID, Long> snapshot = Map.copyOf(balances);
+    ByteBuffer buffer = ByteBuffer.allocate(snapshot.size() * RECORD_SIZE);
+    snapshot.forEach((playerId, balance) -> {
+      if (balance != 0) {
+        writeRecord(buffer, playerId, balance);
+      }
+    });
+    buffer.flip();
+    try (FileChannel temporaryChannel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+      while (buffer.hasRemaining()) {
+        temporaryChannel.write(buffer);
+      }
+      temporaryChannel.force(true);
+    }
+    boolean open = channel != null;
+    if (open) {
+      channel.close();
+      channel = null;
+    }
+    try {
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+      records = buffer.limit() / RECORD_SIZE;
+    } finally {
+      // if reopening fails as well, the next flush tries again
+      if (open) {
+        channel = openLog();
+      }
+    }
+  }
+
+  private FileChannel openLog() throws IOException {
+    return FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND);
+  }
+
+  private static void writeRecord(ByteBuffer buffer, UUID playerId, long balance) {
+    buffer.putLong(playerId.getMostSignificantBits());
+    buffer.putLong(playerId.getLeastSignificantBits());
+    buffer.putLong(balance);
+  }
+}
@@ -0,0 +1,60 @@
+package com.github.sowasvonbot.coin.storage;
+
+import java.util.UUID;
+
+/**
+ * Storage for the buffered coins of all players. Implementations have to be safe to use from any
+ * thread.
+ */
+public interface BalanceStore {
+
+  /**
+   * Returns the balance of the given player.
+   *
+   * @param playerId {@link UUID} of the player
+   * @return the balance, 0 if the player has none
+   */
+  long getBalance(UUID playerId);
+
+  /**
+   * Returns the sum of all balances.
+   *
+   * @return the buffered coins of all players
+   */
+  long getTotal();
+
+  /**
+   * Adds the given amount to the balance of the player.
+   *
+   * @param playerId {@link UUID} of the player
+   * @param amount   long, might be negative
+   * @return the new balance
+   */
+  long add(UUID playerId, long amount);
+
+  /**
+   * Sets the balance of the player to zero.
+   *
+   * @param playerId {@link UUID} of the player
+   * @return the balance before it was cleared
+   */
+  long clear(UUID playerId);
+
+  /**
+   * Checks, if the store contains any balance. Used to decide, if old data has to be imported.
+   * Balances, which went back to zero, do not count.
+   *
+   * @return true if no player has a balance other than zero
+   */
+  boolean isEmpty();
+
+  /**
+   * Writes all pending changes to the durable storage.
+   */
+  void flush();
+
+  /**
+   * Writes all pending changes and releases the storage.
+   */
+  void close();
+}
@@ -1,30 +1,24 @@
 package com.github.sowasvonbot.coin.storage;
 
-import static java.util.Objects.requireNonNull;
-
 import com.github.sowasvonbot.RealCoinsPlugin;
 import com.github.sowasvonbot.coin.Coin;
-import com.github.sowasvonbot.util.BlockUtility;
-import com.github.sowasvonbot.util.ItemConverter;
+import com.github.sowasvonbot.coin.CoinSupply;
+import com.github.sowasvonbot.timings.Timing;
+import com.github.sowasvonbot.timings.Timings;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
-import java.util.Arrays;
-import java.util.LinkedList;
-import java.util.List;
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.Map;
-import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
 import org.bukkit.Bukkit;
-import org.bukkit.Location;
 import org.bukkit.OfflinePlayer;
-import org.bukkit.block.Block;
-import org.bukkit.block.Sign;
 import org.bukkit.entity.Player;
-import org.bukkit.inventory.BlockInventoryHolder;
 import org.bukkit.inventory.Inventory;
 import org.bukkit.inventory.ItemStack;
-import org.bukkit.persistence.PersistentDataType;
-import org.bukkit.scoreboard.Criteria;
 import org.bukkit.scoreboard.Objective;
 import org.bukkit.scoreboard.Score;
+import org.bukkit.scoreboard.Scoreboard;
 import org.bukkit.scoreboard.ScoreboardManager;
 
 /**
@@ -33,17 +27,17 @@ import org.bukkit.scoreboard.ScoreboardManager;
 public class CoinBuffer {
 
   private static final String KEY = "CoinBuffer";
+  private static final String BALANCE_FILE = "balances.log";
+  private static final Timing DELIVERY = Timings.getInstance().timing("coin_delivery");
+  private static final LongAdder DEPOSITED = Timings.getInstance().counter("coins_deposited");
   private static CoinBuffer instance;
 
-  private final Objective coinData;
+  private final BalanceStore balanceStore;
 
-  private CoinBuffer() {
-    ScoreboardManager scoreboardManager = requireNonNull(Bukkit.getScoreboardManager());
-    if (scoreboardManager.getMainScoreboard().getObjective(KEY) == null) {
-      Bukkit.getScoreboardManager().getMainScoreboard()
-          .registerNewObjective(KEY, Criteria.create(KEY), KEY);
-    }
-    coinData = Bukkit.getScoreboardManager().getMainScoreboard().getObjective(KEY);
+  private CoinBuffer(BalanceStore balanceStore) {
+    this.balanceStore = balanceStore;
+    migrateScoreboard();
+    CoinSupply.getInstance().setBuffered(balanceStore.getTotal());
   }
 
   /**
@@ -54,100 +48,120 @@ public class CoinBuffer {
   @SuppressFBWarnings("MS_EXPOSE_REP")
   public static CoinBuffer getInstance() {
     if (instance == null) {
-      instance = new CoinBuffer();
+      Path file = RealCoinsPlugin.COINS_PLUGIN.getDataFolder().toPath().resolve(BALANCE_FILE);
+      try {
+        instance = new CoinBuffer(new AppendLogBalanceStore(file));
+      } catch (IOException e) {
+        throw new IllegalStateException(String.format("Could not open %s", file), e);
+      }
     }
     return instance;
   }
 
+  /**
+   * Writes all pending balance changes and closes the {@link BalanceStore}.
+   */
+  public static void close() {
+    if (instance != null) {
+      instance.balanceStore.close();
+      instance = null;
+    }
+  }
+
+  /**
+   * Imports the balances of the old scoreboard objective once. The objective is removed afterwards.
+   */
+  private void migrateScoreboard() {
+    ScoreboardManager scoreboardManager = Bukkit.getScoreboardManager();
+    if (scoreboardManager == null) {
+      return;
+    }
+    Scoreboard scoreboard = scoreboardManager.getMainScoreboard();
+    Objective objective = scoreboard.getObjective(KEY);
+    if (objective == null) {
+      return;
+    }
+    if (!balanceStore.isEmpty()) {
+      RealCoinsPlugin.getPluginLogger().warning(String.format(
+          "Scoreboard objective %s found, but balances exist already. Not importing it", KEY));
+      return;
+    }
+    int imported = 0;
+    for (String entry : scoreboard.getEntries()) {
+      Score score = objective.getScore(entry);
+      if (!score.isScoreSet() || score.getScore() == 0) {
+        continue;
+      }
+      try {
+        balanceStore.add(UUID.fromString(entry), score.getScore());
+        imported++;
+      } catch (IllegalArgumentException e) {
+        RealCoinsPlugin.getPluginLogger()
+            .warning(String.format("Skipping scoreboard entry %s, not a player id", entry));
+      }
+    }
+    balanceStore.flush();
+    objective.unregister();
+    RealCoinsPlugin.getPluginLogger()
+        .info(String.format("Imported %d coin balances from the scoreboard", imported));
+  }
+
   /**
    * Sends coins to the specified player. Every coin should be sent with this method.
    *
    * @param target {@link OfflinePlayer} because the player who receives coins might not be online
-   * @param amount int, the amount of coins to send to the player
+   * @param amount long, the amount of coins to send to the player
    */
-  public void sendCoins(OfflinePlayer target, int amount) {
-    Score targetBuffer = coinData.getScore(target.getUniqueId().toString());
+  public void sendCoins(OfflinePlayer target, long amount) {
     if (target.isOnline()) {
       amount = sendCoinsToPlayerChests(target.getPlayer(), amount);
     }
-    targetBuffer.setScore(targetBuffer.getScore() + amount);
+    if (amount != 0) {
+      addBalance(target.getUniqueId(), amount);
+    }
   }
 
-  @SuppressWarnings("unchecked")
-  private int sendCoinsToPlayerChests(Player player, int amount) {
-    String chestString = player.getPersistentDataContainer()
-        .get(Constants.PLAYER_STORAGE_KEY, PersistentDataType.STRING);
-    if (chestString == null || chestString.isBlank()) {
-      return amount;
-    }
-    List<String> chests = Arrays.asList(chestString.split(";"));
+  private void addBalance(UUID playerId, long amount) {
+    balanceStore.add(playerId, amount);
+    CoinSupply.getInstance().recordBuffered(amount);
+  }
 
-    if (chests.size() == 0) {
-      return amount;
+  private long sendCoinsToPlayerChests(Player player, long amount) {
+    long start = DELIVERY.start();
+    try {
+      long remaining = fillPlayerChests(player, amount);
+      DEPOSITED.add(amount - remaining);
+      return remaining;
+    } finally {
+      DELIVERY.stop(start);
     }
+  }
 
-    List<BlockInventoryHolder> inventoryHolders = new LinkedList<>();
-    List<String> verifiedChests = new LinkedList<>();
-
-    for (String possibleChestString : chests) {
-      try {
-        if (possibleChestString.isBlank()) {
-          continue;
-        }
-        Optional<Object> optionalObject = ItemConverter.base64StringToObject(possibleChestString);
-        if (optionalObject.isEmpty()) {
-          continue;
-        }
-        if (!(optionalObject.get() instanceof Map map)) {
-          continue;
-        }
-
-        // Check if the location points to a coin sign
-        Location signLocation = Location.deserialize(map);
-        if (!CoinSign.isCoinStorageSign(signLocation.getBlock()) || !(signLocation.getBlock()
-            .getState() instanceof Sign sign)) {
-          continue;
-        }
-
-        // Check if the block supporting the sign is an inventory block
-        Optional<Block> possibleStorageBlock = BlockUtility.getBlockSupportingSign(sign);
-        if (possibleStorageBlock.isEmpty()) {
-          continue;
-        }
-        Block storageBlock = possibleStorageBlock.get();
-        if (BlockUtility.isPossibleInventoryBlock(storageBlock)) {
-          inventoryHolders.add((BlockInventoryHolder) storageBlock.getState());
-          verifiedChests.add(possibleChestString);
-        }
-
-      } catch (Exception e) {
-        RealCoinsPlugin.getPluginLogger().warning("Error deserializing Location object");
-      }
-    }
-
-    player.getPersistentDataContainer().set(Constants.PLAYER_STORAGE_KEY, PersistentDataType.STRING,
-        String.join(";", verifiedChests));
-
-    for (BlockInventoryHolder holder : inventoryHolders) {
-      amount = fillInventoryWithCoins(holder.getInventory(), amount);
+  private long fillPlayerChests(Player player, long amount) {
+    CoinChestRegistry registry = CoinChestRegistry.getInstance();
+    CoinChestRegistry.ResolvedChests resolved = registry.resolve(player);
+    for (Inventory inventory : resolved.inventories()) {
+      amount = fillInventoryWithCoins(inventory, amount);
       if (amount == 0) {
-        // exiting loop here
-        return amount;
+        break;
       }
     }
+    // the remainder is buffered and delivered when the chunks of the skipped chests load
+    registry.recordDeposit(amount == 0, resolved);
     return amount;
   }
 
-  private static int fillInventoryWithCoins(Inventory inventory, int amount) {
+  private static long fillInventoryWithCoins(Inventory inventory, long amount) {
     while (amount > 0) {
-      ItemStack coins = Coin.createItemStack();
-      coins.setAmount(Math.min(amount, coins.getMaxStackSize()));
+      ItemStack coins = Coin.createChange(amount);
+      int value = Coin.getValue(coins);
       Map<Integer, ItemStack> remaining = inventory.addItem(coins);
 
       if (!remaining.isEmpty()) {
-        return remaining.values().stream().mapToInt(ItemStack::getAmount).sum();
+        return amount - (long) coins.getAmount() * value
+            + (long) remaining.values().stream().mapToInt(ItemStack::getAmount).sum() * value;
       }
-      amount -= coins.getAmount();
+      amount -= (long) coins.getAmount() * value;
     }
     return amount;
   }
@@ -158,13 +172,29 @@ public class CoinBuffer {
    * @param target the player to check for buffered coins
    * @return the amount of coins
    */
-  public int getCoins(OfflinePlayer target) {
-    return coinData.getScore(target.getUniqueId().toString()).getScore();
+  public long getCoins(OfflinePlayer target) {
+    return balanceStore.getBalance(target.getUniqueId());
   }
 
-  protected void clearPlayerBuffer(Player player) {
-    int amount = getCoins(player);
-    coinData.getScore(player.getPlayer().getUniqueId().toString()).setScore(0);
-    sendCoins(player, amount);
+  /**
+   * Moves up to the given amount of buffered coins into the coin chests of the player.
+   *
+   * @param player    the online owner of the coins
+   * @param maxAmount long, maximum number of coins to move
+   * @return true, if coins are left in the buffer and the chests might take more
+   */
+  boolean deliverBufferedCoins(Player player, long maxAmount) {
+    long amount = Math.min(getCoins(player), maxAmount);
+    if (amount <= 0) {
+      return false;
+    }
+    addBalance(player.getUniqueId(), -amount);
+    long remaining = sendCoinsToPlayerChests(player, amount);
+    if (remaining > 0) {
+      // all chests are full
+      addBalance(player.getUniqueId(), remaining);
+      return false;
+    }
+    return getCoins(player) > 0;
   }
 }
@@ -0,0 +1,39 @@
+package com.github.sowasvonbot.coin.storage;
+
+import com.github.sowasvonbot.util.BlockUtility;
+import java.util.Optional;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Position of one coin sign of a player.
+ *
+ * @param worldId      {@link UUID} of the world
+ * @param signPosition packed position of the coin sign, see {@link BlockUtility#packPosition}
+ */
+record CoinChest(UUID worldId, long signPosition) {
+
+  static CoinChest of(Block block) {
+    return new CoinChest(block.getWorld().getUID(), BlockUtility.packPosition(block));
+  }
+
+  /**
+   * Returns the world of the sign.
+   *
+   * @return the {@link World}, empty if it is not loaded
+   */
+  Optional<World> getWorld() {
+    return Optional.ofNullable(Bukkit.getWorld(worldId));
+  }
+
+  long getChunkKey() {
+    return BlockUtility.chunkOfPosition(signPosition);
+  }
+
+  Block getSignBlock(World world) {
+    return world.getBlockAt(BlockUtility.unpackX(signPosition),
+        BlockUtility.unpackY(signPosition), BlockUtility.unpackZ(signPosition));
+  }
+}
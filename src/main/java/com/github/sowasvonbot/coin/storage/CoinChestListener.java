@@ -0,0 +1,52 @@
+package com.github.sowasvonbot.coin.storage;
+
+import com.github.sowasvonbot.util.ChunkManifest;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.event.block.BlockBreakEvent;
+import org.bukkit.event.player.PlayerQuitEvent;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+
+/**
+ * Keeps the {@link CoinChestRegistry} in sync with the world.
+ */
+public class CoinChestListener implements Listener {
+
+  /**
+   * Removes broken coin signs from their owner.
+   *
+   * @param event {@link BlockBreakEvent}
+   */
+  @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+  public void removeBrokenCoinChest(BlockBreakEvent event) {
+    if (!CoinSign.isCoinStorageSign(event.getBlock())) {
+      return;
+    }
+    ChunkManifest.remove(event.getBlock(), ChunkManifest.Kind.COIN_SIGN);
+    CoinSign.getOwner(event.getBlock()).map(Bukkit::getPlayer)
+        .ifPresent(owner -> CoinChestRegistry.getInstance().remove(owner, event.getBlock()));
+  }
+
+  /**
+   * Delivers buffered coins of players with a coin chest inside the loaded chunk.
+   *
+   * @param event {@link ChunkLoadEvent}
+   */
+  @EventHandler
+  public void deliverToLoadedChunk(ChunkLoadEvent event) {
+    CoinChestRegistry.getInstance().chunkLoaded(event.getChunk());
+  }
+
+  @EventHandler
+  public void invalidateChunk(ChunkUnloadEvent event) {
+    CoinChestRegistry.getInstance().invalidateChunk(event.getChunk());
+  }
+
+  @EventHandler
+  public void forgetPlayer(PlayerQuitEvent event) {
+    CoinChestRegistry.getInstance().forget(event.getPlayer());
+  }
+}
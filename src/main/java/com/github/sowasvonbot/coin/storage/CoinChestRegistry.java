@@ -0,0 +1,326 @@
+package com.github.sowasvonbot.coin.storage;
+
+import com.github.sowasvonbot.util.BlockUtility;
+import com.github.sowasvonbot.util.ChunkManifest;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.UUID;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.Sign;
+import org.bukkit.block.data.type.WallSign;
+import org.bukkit.entity.Player;
+import org.bukkit.inventory.BlockInventoryHolder;
+import org.bukkit.inventory.Inventory;
+
+/**
+ * Cache of the coin chests of all online players. The chests of a player are read from the
+ * persistent data once, each chest is validated on its first use. Validations are dropped when
+ * the chunk of the chest unloads, the chest is removed when its sign is broken.
+ *
+ * <p>Chests inside unloaded chunks are skipped, they are never loaded for a delivery. The coins
+ * stay buffered and are delivered, when the chunk of the chest loads again.
+ */
+class CoinChestRegistry {
+
+  private static CoinChestRegistry instance;
+
+  private final Map<UUID, PlayerChests> players = new HashMap<>();
+  // world id -> chunk key -> online players with a coin chest inside the chunk
+  private final Map<UUID, Map<Long, Set<UUID>>> chunkOwners = new HashMap<>();
+
+  private long immediateDeposits = 0;
+  private long deferredDeposits = 0;
+
+  private CoinChestRegistry() {
+  }
+
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  static CoinChestRegistry getInstance() {
+    if (instance == null) {
+      instance = new CoinChestRegistry();
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the inventories of all valid coin chests of the player inside loaded chunks. Invalid
+   * chests are removed from the player.
+   *
+   * @param player the owner of the coin chests
+   * @return the {@link ResolvedChests}
+   */
+  ResolvedChests resolve(Player player) {
+    PlayerChests playerChests = getPlayerChests(player);
+    List<Inventory> inventories = new ArrayList<>();
+    int unloaded = 0;
+    boolean changed = false;
+    Iterator<CoinChest> iterator = playerChests.chests.iterator();
+    while (iterator.hasNext()) {
+      CoinChest chest = iterator.next();
+      Optional<World> world = chest.getWorld();
+      if (world.isEmpty() || !isChunkLoaded(world.get(), chest.getChunkKey())) {
+        // keep chests of unloaded worlds and chunks
+        unloaded++;
+        continue;
+      }
+      Optional<Inventory> inventory = resolveInventory(playerChests, chest, world.get());
+      if (inventory.isPresent()) {
+        inventories.add(inventory.get());
+      } else if (playerChests.verified.containsKey(chest)) {
+        // the storage block is inside an unloaded chunk
+        unloaded++;
+      } else {
+        iterator.remove();
+        unindex(player.getUniqueId(), chest);
+        changed = true;
+      }
+    }
+    if (changed) {
+      CoinChests.write(player, playerChests.chests);
+    }
+    return new ResolvedChests(inventories, unloaded);
+  }
+
+  /**
+   * Counts the outcome of one deposit.
+   *
+   * @param complete true, if all coins reached a chest
+   * @param resolved the chests used for the deposit
+   */
+  void recordDeposit(boolean complete, ResolvedChests resolved) {
+    if (complete) {
+      immediateDeposits++;
+    } else if (resolved.unloaded() > 0) {
+      deferredDeposits++;
+    }
+  }
+
+  /**
+   * Returns a short description of the delivery counters, e.g. for commands.
+   *
+   * @return {@link String} with the counters
+   */
+  String getMetrics() {
+    return String.format("deposits immediate: %d, deferred to chunk load: %d", immediateDeposits,
+        deferredDeposits);
+  }
+
+  /**
+   * Adds a new coin chest to the player.
+   *
+   * @param player the owner of the coin chest
+   * @param sign   the coin {@link Block sign}
+   */
+  void add(Player player, Block sign) {
+    PlayerChests playerChests = getPlayerChests(player);
+    CoinChest chest = CoinChest.of(sign);
+    if (!playerChests.chests.contains(chest)) {
+      playerChests.chests.add(chest);
+      index(player.getUniqueId(), chest);
+      CoinChests.write(player, playerChests.chests);
+    }
+  }
+
+  /**
+   * Removes the coin chest of the given sign from its owner, if the owner is online.
+   *
+   * @param owner the owner of the sign
+   * @param sign  the broken coin {@link Block sign}
+   */
+  void remove(Player owner, Block sign) {
+    PlayerChests playerChests = players.get(owner.getUniqueId());
+    if (playerChests == null) {
+      return;
+    }
+    CoinChest chest = CoinChest.of(sign);
+    playerChests.verified.remove(chest);
+    if (playerChests.chests.remove(chest)) {
+      unindex(owner.getUniqueId(), chest);
+      CoinChests.write(owner, playerChests.chests);
+    }
+  }
+
+  /**
+   * Queues the buffered coins of every online player with a coin chest inside the loaded chunk.
+   * Chests listed in the {@link ChunkManifest} of the chunk are verified right away, without
+   * reading the state of their sign.
+   *
+   * @param chunk the loaded {@link Chunk}
+   */
+  void chunkLoaded(Chunk chunk) {
+    World world = chunk.getWorld();
+    Set<UUID> owners = new HashSet<>();
+    ChunkManifest.read(chunk, ChunkManifest.Kind.COIN_SIGN).ifPresent(entries -> {
+      for (ChunkManifest.Entry entry : entries) {
+        if (verifyListed(world, entry)) {
+          owners.add(entry.owner());
+        }
+      }
+    });
+    Map<Long, Set<UUID>> worldOwners = chunkOwners.get(world.getUID());
+    if (worldOwners != null) {
+      owners.addAll(
+          worldOwners.getOrDefault(BlockUtility.packChunk(chunk.getX(), chunk.getZ()), Set.of()));
+    }
+    for (UUID ownerId : owners) {
+      Player owner = Bukkit.getPlayer(ownerId);
+      if (owner != null && CoinBuffer.getInstance().getCoins(owner) > 0) {
+        PayoutQueue.getInstance().enqueueForLoadedChunk(owner);
+      }
+    }
+  }
+
+  private boolean verifyListed(World world, ChunkManifest.Entry entry) {
+    Player owner = Bukkit.getPlayer(entry.owner());
+    if (owner == null) {
+      return false;
+    }
+    PlayerChests playerChests = getPlayerChests(owner);
+    CoinChest chest = new CoinChest(world.getUID(), entry.signPosition());
+    // the manifest keeps signs removed by a world editor until the chunk is scanned again
+    if (!playerChests.chests.contains(chest)
+        || !(chest.getSignBlock(world).getBlockData() instanceof WallSign)) {
+      return false;
+    }
+    long storagePosition = entry.blockPosition();
+    playerChests.verified.put(chest, world.getBlockAt(BlockUtility.unpackX(storagePosition),
+        BlockUtility.unpackY(storagePosition), BlockUtility.unpackZ(storagePosition)));
+    return true;
+  }
+
+  /**
+   * Drops the validation of all chests inside the given chunk.
+   *
+   * @param chunk the unloading {@link Chunk}
+   */
+  void invalidateChunk(Chunk chunk) {
+    UUID worldId = chunk.getWorld().getUID();
+    long chunkKey = BlockUtility.packChunk(chunk.getX(), chunk.getZ());
+    for (PlayerChests playerChests : players.values()) {
+      playerChests.verified.keySet().removeIf(
+          chest -> chest.worldId().equals(worldId) && chest.getChunkKey() == chunkKey);
+    }
+  }
+
+  /**
+   * Removes the player from the cache.
+   *
+   * @param player the leaving {@link Player}
+   */
+  void forget(Player player) {
+    PlayerChests playerChests = players.remove(player.getUniqueId());
+    if (playerChests != null) {
+      playerChests.chests.forEach(chest -> unindex(player.getUniqueId(), chest));
+    }
+  }
+
+  private PlayerChests getPlayerChests(Player player) {
+    PlayerChests playerChests = players.get(player.getUniqueId());
+    if (playerChests == null) {
+      playerChests = new PlayerChests(CoinChests.read(player));
+      players.put(player.getUniqueId(), playerChests);
+      playerChests.chests.forEach(chest -> index(player.getUniqueId(), chest));
+    }
+    return playerChests;
+  }
+
+  private void index(UUID playerId, CoinChest chest) {
+    chunkOwners.computeIfAbsent(chest.worldId(), id -> new HashMap<>())
+        .computeIfAbsent(chest.getChunkKey(), key -> new HashSet<>()).add(playerId);
+  }
+
+  private void unindex(UUID playerId, CoinChest chest) {
+    Map<Long, Set<UUID>> worldOwners = chunkOwners.get(chest.worldId());
+    if (worldOwners == null) {
+      return;
+    }
+    Set<UUID> owners = worldOwners.get(chest.getChunkKey());
+    if (owners == null) {
+      return;
+    }
+    PlayerChests playerChests = players.get(playerId);
+    // the player might own another chest inside the same chunk
+    boolean stillOwnsChunk = playerChests != null && playerChests.chests.stream().anyMatch(
+        other -> other.worldId().equals(chest.worldId())
+            && other.getChunkKey() == chest.getChunkKey());
+    if (!stillOwnsChunk) {
+      owners.remove(playerId);
+      if (owners.isEmpty()) {
+        worldOwners.remove(chest.getChunkKey());
+      }
+    }
+  }
+
+  private static boolean isChunkLoaded(World world, long chunkKey) {
+    return world.isChunkLoaded((int) (chunkKey >> 32), (int) chunkKey);
+  }
+
+  private static boolean isChunkLoaded(Block block) {
+    return block.getWorld().isChunkLoaded(block.getX() >> 4, block.getZ() >> 4);
+  }
+
+  private static Optional<Inventory> resolveInventory(PlayerChests playerChests, CoinChest chest,
+      World world) {
+    Block storageBlock = playerChests.verified.get(chest);
+    if (storageBlock == null) {
+      Optional<Block> verifiedBlock = verify(chest, world);
+      if (verifiedBlock.isEmpty()) {
+        return Optional.empty();
+      }
+      storageBlock = verifiedBlock.get();
+      playerChests.verified.put(chest, storageBlock);
+    }
+    if (!isChunkLoaded(storageBlock)) {
+      return Optional.empty();
+    }
+    if (storageBlock.getState() instanceof BlockInventoryHolder holder) {
+      return Optional.of(holder.getInventory());
+    }
+    playerChests.verified.remove(chest);
+    return Optional.empty();
+  }
+
+  private static Optional<Block> verify(CoinChest chest, World world) {
+    Block signBlock = chest.getSignBlock(world);
+    // Check if the location points to a coin sign
+    if (!CoinSign.isCoinStorageSign(signBlock) || !(signBlock.getState() instanceof Sign sign)) {
+      return Optional.empty();
+    }
+    // Check if the block supporting the sign is an inventory block, it might be inside the
+    // neighbour chunk, which is not loaded. Then the chest is verified later.
+    Optional<Block> supporter = BlockUtility.getBlockSupportingSign(sign);
+    if (supporter.isPresent() && !isChunkLoaded(supporter.get())) {
+      return supporter;
+    }
+    return supporter.filter(BlockUtility::isPossibleInventoryBlock);
+  }
+
+  /**
+   * Inventories of the coin chests of one player, which are ready for a deposit.
+   *
+   * @param inventories {@link List} of {@link Inventory inventories} to fill with coins
+   * @param unloaded    number of chests skipped, because their chunk or world is not loaded
+   */
+  record ResolvedChests(List<Inventory> inventories, int unloaded) {
+  }
+
+  private static class PlayerChests {
+    private final List<CoinChest> chests;
+    // chests validated since their chunk loaded, with the block holding the coins
+    private final Map<CoinChest, Block> verified = new HashMap<>();
+
+    private PlayerChests(List<CoinChest> chests) {
+      this.chests = chests;
+    }
+  }
+}
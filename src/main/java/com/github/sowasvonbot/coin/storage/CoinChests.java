@@ -0,0 +1,93 @@
+package com.github.sowasvonbot.coin.storage;
+
+import com.github.sowasvonbot.util.BlockUtility;
+import com.github.sowasvonbot.util.ItemConverter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.bukkit.Location;
+import org.bukkit.entity.Player;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+/**
+ * Reads and writes the list of coin chests stored in the persistent data of a player. Every chest
+ * is stored as three longs: the world id and the packed position of its sign.
+ */
+class CoinChests {
+
+  private static final int LONGS_PER_CHEST = 3;
+
+  /**
+   * Reads the coin chests of the given player. Lists still stored in the legacy base64 format are
+   * rewritten on the way.
+   *
+   * @param player the owner of the coin chests
+   * @return {@link List} of all stored coin chests
+   */
+  static List<CoinChest> read(Player player) {
+    PersistentDataContainer container = player.getPersistentDataContainer();
+    List<CoinChest> chests = new ArrayList<>();
+    if (container.has(Constants.PLAYER_STORAGE_KEY, PersistentDataType.LONG_ARRAY)) {
+      long[] data = container.get(Constants.PLAYER_STORAGE_KEY, PersistentDataType.LONG_ARRAY);
+      for (int i = 0; i + LONGS_PER_CHEST <= data.length; i += LONGS_PER_CHEST) {
+        chests.add(new CoinChest(new UUID(data[i], data[i + 1]), data[i + 2]));
+      }
+      return chests;
+    }
+    if (!container.has(Constants.PLAYER_STORAGE_KEY, PersistentDataType.STRING)) {
+      return chests;
+    }
+    for (Location location : readLegacy(
+        container.get(Constants.PLAYER_STORAGE_KEY, PersistentDataType.STRING))) {
+      chests.add(new CoinChest(location.getWorld().getUID(),
+          BlockUtility.packPosition(location.getBlockX(), location.getBlockY(),
+              location.getBlockZ())));
+    }
+    write(player, chests);
+    return chests;
+  }
+
+  /**
+   * Replaces the stored coin chests of the given player.
+   *
+   * @param player the owner of the coin chests
+   * @param chests {@link List} of coin chests
+   */
+  static void write(Player player, List<CoinChest> chests) {
+    long[] data = new long[chests.size() * LONGS_PER_CHEST];
+    for (int i = 0; i < chests.size(); i++) {
+      CoinChest chest = chests.get(i);
+      data[i * LONGS_PER_CHEST] = chest.worldId().getMostSignificantBits();
+      data[i * LONGS_PER_CHEST + 1] = chest.worldId().getLeastSignificantBits();
+      data[i * LONGS_PER_CHEST + 2] = chest.signPosition();
+    }
+    player.getPersistentDataContainer()
+        .set(Constants.PLAYER_STORAGE_KEY, PersistentDataType.LONG_ARRAY, data);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static List<Location> readLegacy(String chestString) {
+    List<Location> locations = new ArrayList<>();
+    for (String possibleChestString : chestString.split(";")) {
+      if (possibleChestString.isBlank()) {
+        continue;
+      }
+      Optional<Object> optionalObject = ItemConverter.base64StringToObject(possibleChestString);
+      if (optionalObject.isEmpty() || !(optionalObject.get() instanceof Map map)) {
+        continue;
+      }
+      try {
+        Location location = Location.deserialize(map);
+        if (location.getWorld() != null) {
+          locations.add(location);
+        }
+      } catch (IllegalArgumentException e) {
+        // world of the location does not exist anymore
+      }
+    }
+    return locations;
+  }
+}
@@ -1,18 +1,55 @@
 package com.github.sowasvonbot.coin.storage;
 
 import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.coin.CoinSupply;
+import com.github.sowasvonbot.timings.Timings;
+import com.github.sowasvonbot.trading.ShopFinder;
+import com.github.sowasvonbot.trading.ShopListing;
+import com.github.sowasvonbot.trading.TradeSign;
+import com.github.sowasvonbot.trading.ledger.TradeLedger;
+import com.github.sowasvonbot.trading.ledger.TradeRecord;
+import com.github.sowasvonbot.trading.stats.ShopStatistic;
+import com.github.sowasvonbot.trading.stats.ShopStatistics;
+import com.github.sowasvonbot.util.BlockUtility;
 import com.github.sowasvonbot.util.ConfigHolder;
+import com.github.sowasvonbot.util.ItemUtility;
+import java.text.SimpleDateFormat;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.logging.Level;
+import org.bukkit.Bukkit;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
+import org.bukkit.block.Block;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandException;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.command.CommandSender;
 import org.bukkit.entity.Player;
+import org.bukkit.inventory.ItemStack;
 
 /**
  * All commands relating to coins.
  */
 public class CoinCommands implements CommandExecutor {
 
+  public static final String ADMIN_PERMISSION = "realcoins.admin";
+  private static final int LEDGER_LINES = 10;
+  private static final int PAGE_SIZE = 8;
+  private static final int FIND_RESULTS = 8;
+  private static final int FIND_DISTANCE = 2048;
+  private static final int TARGET_DISTANCE = 5;
+  private static final long TICKS_PER_MINUTE = 20 * 60;
+  private static final int DEFAULT_SUPPLY_HOURS = 24;
+  private static final int SUPPLY_LINES = 8;
+  private static final long MILLIS_PER_HOUR = 60 * 60 * 1000;
+
   private CoinCommands() {
   }
 
@@ -24,16 +61,288 @@ public class CoinCommands implements CommandExecutor {
   @Override
   public boolean onCommand(CommandSender commandSender, Command command, String label,
       String[] args) {
+    if (!command.getName().equals("coins")) {
+      throw new CommandException(String.format("Command %s not found", label));
+    }
+    if (args.length > 0 && args[0].equals("reload")) {
+      return reload(commandSender);
+    }
+    if (args.length > 0 && args[0].equals("payouts")) {
+      return showPayouts(commandSender);
+    }
+    if (args.length > 0 && args[0].equals("timings")) {
+      return showTimings(commandSender, args);
+    }
+    if (args.length > 0 && args[0].equals("supply")) {
+      return showSupply(commandSender, args);
+    }
     if (!(commandSender instanceof Player player)) {
       return false;
     }
 
-    switch (command.getName()) {
-      case "coins" -> commandSender.sendMessage(String.format(ConfigHolder.getInstance()
-          .getValue(ConfigHolder.ConfigField.COMMAND_MESSAGE_COIN, String.class,
-              (message) -> message.contains("%d")), CoinBuffer.getInstance().getCoins(player)));
-      default -> throw new CommandException(String.format("Command %s not found", label));
+    switch (args.length == 0 ? "" : args[0]) {
+      case "" -> commandSender.sendMessage(String.format(ConfigHolder.getInstance()
+          .getValue(ConfigHolder.ConfigField.COMMAND_MESSAGE_COIN, String.class),
+          CoinBuffer.getInstance().getCoins(player)));
+      case "ledger" -> {
+        return showLedger(player, args);
+      }
+      case "shopstats" -> {
+        return showShopStatistics(player, args);
+      }
+      case "find" -> {
+        return findShops(player, args);
+      }
+      case "dynamic" -> toggleDynamicPricing(player);
+      default -> {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  private static boolean reload(CommandSender commandSender) {
+    if (!commandSender.hasPermission(ADMIN_PERMISSION)) {
+      commandSender.sendMessage(message(ConfigHolder.ConfigField.ERROR_NOT_ALLOWED));
+      return true;
+    }
+    RealCoinsPlugin.COINS_PLUGIN.reloadConfiguration();
+    commandSender.sendMessage(message(ConfigHolder.ConfigField.COMMAND_MESSAGE_RELOADED));
+    return true;
+  }
+
+  private static boolean showPayouts(CommandSender commandSender) {
+    if (!commandSender.hasPermission(ADMIN_PERMISSION)) {
+      commandSender.sendMessage(message(ConfigHolder.ConfigField.ERROR_NOT_ALLOWED));
+      return true;
+    }
+    commandSender.sendMessage(PayoutQueue.getInstance().getMetrics());
+    commandSender.sendMessage(CoinChestRegistry.getInstance().getMetrics());
+    return true;
+  }
+
+  private static boolean showTimings(CommandSender commandSender, String[] args) {
+    if (!commandSender.hasPermission(ADMIN_PERMISSION)) {
+      commandSender.sendMessage(message(ConfigHolder.ConfigField.ERROR_NOT_ALLOWED));
+      return true;
+    }
+    if (args.length > 1 && args[1].equals("reset")) {
+      Timings.getInstance().reset();
+      commandSender.sendMessage(message(ConfigHolder.ConfigField.COMMAND_MESSAGE_TIMINGS_RESET));
+      return true;
+    }
+    List<String> lines = Timings.getInstance().describe();
+    if (lines.isEmpty()) {
+      commandSender.sendMessage(message(ConfigHolder.ConfigField.COMMAND_MESSAGE_NO_TIMINGS));
+    }
+    lines.forEach(commandSender::sendMessage);
+    return true;
+  }
+
+  private static boolean showSupply(CommandSender commandSender, String[] args) {
+    if (!commandSender.hasPermission(ADMIN_PERMISSION)) {
+      commandSender.sendMessage(message(ConfigHolder.ConfigField.ERROR_NOT_ALLOWED));
+      return true;
+    }
+    int hours = DEFAULT_SUPPLY_HOURS;
+    if (args.length > 1) {
+      try {
+        hours = Integer.parseInt(args[1]);
+      } catch (NumberFormatException e) {
+        return false;
+      }
+      if (hours <= 0) {
+        return false;
+      }
+    }
+    CoinSupply.Snapshot current = CoinSupply.getInstance().snapshot();
+    commandSender.sendMessage(String.format(
+        message(ConfigHolder.ConfigField.COMMAND_MESSAGE_SUPPLY), current.minted(),
+        current.burned(), current.circulating(), current.buffered()));
+    long since = current.timestamp() - hours * MILLIS_PER_HOUR;
+    Bukkit.getScheduler().runTaskAsynchronously(RealCoinsPlugin.COINS_PLUGIN, () -> {
+      List<CoinSupply.Snapshot> history = CoinSupply.getInstance().history(since);
+      Bukkit.getScheduler().runTask(RealCoinsPlugin.COINS_PLUGIN,
+          () -> sendSupplyHistory(commandSender, current, history));
+    });
+    return true;
+  }
+
+  private static void sendSupplyHistory(CommandSender commandSender,
+      CoinSupply.Snapshot current, List<CoinSupply.Snapshot> history) {
+    if (history.isEmpty()) {
+      commandSender.sendMessage(
+          message(ConfigHolder.ConfigField.COMMAND_MESSAGE_NO_SUPPLY_HISTORY));
+      return;
+    }
+    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+    String format = message(ConfigHolder.ConfigField.COMMAND_MESSAGE_SUPPLY_HISTORY);
+    // evenly spread samples, the newest snapshot is always shown
+    int step = Math.max(1, (history.size() + SUPPLY_LINES - 1) / SUPPLY_LINES);
+    for (int i = (history.size() - 1) % step; i < history.size(); i += step) {
+      CoinSupply.Snapshot snapshot = history.get(i);
+      commandSender.sendMessage(String.format(format,
+          dateFormat.format(new Date(snapshot.timestamp())), snapshot.circulating(),
+          current.circulating() - snapshot.circulating(), snapshot.buffered()));
+    }
+  }
+
+  private boolean showLedger(Player player, String[] args) {
+    if (args.length == 1) {
+      scanLedger(player, player.getUniqueId());
+      return true;
     }
+    if (!player.hasPermission(ADMIN_PERMISSION)) {
+      player.sendMessage(message(ConfigHolder.ConfigField.ERROR_NOT_ALLOWED));
+      return true;
+    }
+    String name = args[1];
+    Player online = Bukkit.getPlayerExact(name);
+    if (online != null) {
+      scanLedger(player, online.getUniqueId());
+      return true;
+    }
+    // only players who joined before, looking up unknown names would ask Mojang
+    Bukkit.getScheduler().runTaskAsynchronously(RealCoinsPlugin.COINS_PLUGIN, () -> {
+      Optional<UUID> targetId = Arrays.stream(Bukkit.getOfflinePlayers())
+          .filter(offlinePlayer -> name.equalsIgnoreCase(offlinePlayer.getName()))
+          .map(OfflinePlayer::getUniqueId).findFirst();
+      Bukkit.getScheduler().runTask(RealCoinsPlugin.COINS_PLUGIN, () -> targetId.ifPresentOrElse(
+          id -> scanLedger(player, id), () -> player.sendMessage(String.format(
+              message(ConfigHolder.ConfigField.ERROR_UNKNOWN_PLAYER), name))));
+    });
     return true;
   }
+
+  private static void scanLedger(Player player, UUID targetId) {
+    TradeLedger.getInstance().scan(
+            tradeRecord -> tradeRecord.buyer().equals(targetId) || tradeRecord.seller()
+                .equals(targetId), LEDGER_LINES)
+        .thenAccept(tradeRecords -> Bukkit.getScheduler()
+            .runTask(RealCoinsPlugin.COINS_PLUGIN, () -> sendLedger(player, targetId,
+                tradeRecords)))
+        .exceptionally(e -> {
+          RealCoinsPlugin.getPluginLogger()
+              .log(Level.WARNING, e, () -> "Could not read the trade ledger");
+          Bukkit.getScheduler().runTask(RealCoinsPlugin.COINS_PLUGIN, () -> player.sendMessage(
+              message(ConfigHolder.ConfigField.ERROR_LEDGER_UNREADABLE)));
+          return null;
+        });
+  }
+
+  private boolean showShopStatistics(Player player, String[] args) {
+    int page = 1;
+    if (args.length > 1) {
+      try {
+        page = Integer.parseInt(args[1]);
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+    boolean admin = player.hasPermission(ADMIN_PERMISSION);
+    List<ShopStatistic> statistics = ShopStatistics.getInstance()
+        .snapshot(shop -> admin || shop.owner().equals(player.getUniqueId()));
+    if (statistics.isEmpty()) {
+      player.sendMessage(message(ConfigHolder.ConfigField.COMMAND_MESSAGE_NO_SHOPS));
+      return true;
+    }
+    int pages = (statistics.size() + PAGE_SIZE - 1) / PAGE_SIZE;
+    page = Math.max(1, Math.min(page, pages));
+    player.sendMessage(String.format(
+        message(ConfigHolder.ConfigField.COMMAND_MESSAGE_SHOP_STATISTICS_PAGE), page, pages));
+    for (ShopStatistic statistic : statistics.subList((page - 1) * PAGE_SIZE,
+        Math.min(page * PAGE_SIZE, statistics.size()))) {
+      World world = Bukkit.getWorld(statistic.shop().worldId());
+      long position = statistic.shop().blockPosition();
+      String lastSale = message(ConfigHolder.ConfigField.COMMAND_MESSAGE_NEVER_SOLD);
+      if (world != null && statistic.lastSaleTick() >= 0) {
+        lastSale = String.format(message(ConfigHolder.ConfigField.COMMAND_MESSAGE_LAST_SALE),
+            (world.getFullTime() - statistic.lastSaleTick()) / TICKS_PER_MINUTE);
+      }
+      String line = String.format(
+          message(ConfigHolder.ConfigField.COMMAND_MESSAGE_SHOP_STATISTICS),
+          world == null ? "?" : world.getName(), BlockUtility.unpackX(position),
+          BlockUtility.unpackY(position), BlockUtility.unpackZ(position), statistic.lotsSold(),
+          statistic.coinsEarned(), statistic.restocks(), lastSale);
+      player.sendMessage(admin
+          ? Bukkit.getOfflinePlayer(statistic.shop().owner()).getName() + " " + line : line);
+    }
+    return true;
+  }
+
+  private boolean findShops(Player player, String[] args) {
+    Material material;
+    OptionalLong fingerprint = OptionalLong.empty();
+    if (args.length > 1) {
+      material = Material.matchMaterial(args[1]);
+      if (material == null) {
+        player.sendMessage(
+            String.format(message(ConfigHolder.ConfigField.ERROR_UNKNOWN_ITEM), args[1]));
+        return true;
+      }
+    } else {
+      ItemStack itemInHand = player.getInventory().getItemInMainHand();
+      if (itemInHand.getType().isAir()) {
+        return false;
+      }
+      material = itemInHand.getType();
+      fingerprint = OptionalLong.of(ItemUtility.getFingerprint(itemInHand));
+    }
+    List<ShopListing> listings = ShopFinder.getInstance()
+        .findNearest(player.getLocation(), material, fingerprint, FIND_RESULTS, FIND_DISTANCE);
+    if (listings.isEmpty()) {
+      player.sendMessage(message(ConfigHolder.ConfigField.COMMAND_MESSAGE_NO_SHOPS_NEARBY));
+      return true;
+    }
+    String format = message(ConfigHolder.ConfigField.COMMAND_MESSAGE_FOUND_SHOP);
+    for (ShopListing listing : listings) {
+      long position = listing.shop().blockPosition();
+      int x = BlockUtility.unpackX(position);
+      int y = BlockUtility.unpackY(position);
+      int z = BlockUtility.unpackZ(position);
+      player.sendMessage(String.format(format, listing.itemName(), listing.pieces(),
+          listing.price(), listing.pricePerPiece(), listing.amount(), x, y, z,
+          Math.round(player.getLocation().distance(new Location(player.getWorld(), x, y, z)))));
+    }
+    return true;
+  }
+
+  private static void toggleDynamicPricing(Player player) {
+    Block target = player.getTargetBlockExact(TARGET_DISTANCE);
+    Optional<Boolean> dynamic =
+        target == null ? Optional.empty() : TradeSign.toggleDynamicPricing(target, player);
+    if (dynamic.isEmpty()) {
+      player.sendMessage(message(ConfigHolder.ConfigField.ERROR_NO_TRADING_SIGN_TARGETED));
+      return;
+    }
+    player.sendMessage(message(dynamic.get()
+        ? ConfigHolder.ConfigField.COMMAND_MESSAGE_DYNAMIC_PRICING_ON
+        : ConfigHolder.ConfigField.COMMAND_MESSAGE_DYNAMIC_PRICING_OFF));
+  }
+
+  private static void sendLedger(Player player, UUID targetId, List<TradeRecord> tradeRecords) {
+    if (tradeRecords.isEmpty()) {
+      player.sendMessage(message(ConfigHolder.ConfigField.COMMAND_MESSAGE_NO_TRADES));
+      return;
+    }
+    SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm");
+    for (TradeRecord tradeRecord : tradeRecords) {
+      boolean bought = tradeRecord.buyer().equals(targetId);
+      OfflinePlayer partner =
+          Bukkit.getOfflinePlayer(bought ? tradeRecord.seller() : tradeRecord.buyer());
+      World world = Bukkit.getWorld(tradeRecord.worldId());
+      player.sendMessage(String.format(message(bought
+              ? ConfigHolder.ConfigField.COMMAND_MESSAGE_LEDGER_BOUGHT
+              : ConfigHolder.ConfigField.COMMAND_MESSAGE_LEDGER_SOLD),
+          dateFormat.format(new Date(tradeRecord.timestamp())), tradeRecord.lots(),
+          tradeRecord.coins(), partner.getName(),
+          world == null ? "?" : world.getName(), BlockUtility.unpackX(tradeRecord.position()),
+          BlockUtility.unpackY(tradeRecord.position()),
+          BlockUtility.unpackZ(tradeRecord.position()), tradeRecord.stock()));
+    }
+  }
+
+  private static String message(ConfigHolder.ConfigField field) {
+    return ConfigHolder.getInstance().getSnapshot().getString(field);
+  }
 }
@@ -2,9 +2,10 @@ package com.github.sowasvonbot.coin.storage;
 
 import com.github.sowasvonbot.RealCoinsPlugin;
 import com.github.sowasvonbot.util.BlockUtility;
+import com.github.sowasvonbot.util.ChunkManifest;
 import com.github.sowasvonbot.util.ConfigHolder;
-import com.github.sowasvonbot.util.ItemConverter;
 import java.util.Optional;
+import java.util.UUID;
 import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.block.Block;
@@ -36,30 +37,50 @@ public class CoinSign {
     sign.getPersistentDataContainer()
         .set(OWNER, PersistentDataType.STRING, player.getUniqueId().toString());
     sign.update();
+    toManifestEntry(sign).ifPresent(
+        entry -> ChunkManifest.add(sign.getBlock(), ChunkManifest.Kind.COIN_SIGN, entry));
     addCoinChestToPlayer(player, sign.getLocation());
-    CoinBuffer.getInstance().clearPlayerBuffer(player);
+    PayoutQueue.getInstance().enqueue(player);
   }
 
   private static void addCoinChestToPlayer(Player player, Location location) {
-    PersistentDataContainer container = player.getPersistentDataContainer();
-
-    if (!container.getKeys().contains(Constants.PLAYER_STORAGE_KEY)) {
-      container.set(Constants.PLAYER_STORAGE_KEY, PersistentDataType.STRING, "");
-    }
-
-    String chests = container.get(Constants.PLAYER_STORAGE_KEY, PersistentDataType.STRING);
-
-    Optional<String> newChest = ItemConverter.objectToBase64String(location.serialize());
-    if (newChest.isEmpty()) {
+    if (location.getWorld() == null) {
       player.sendMessage(ConfigHolder.getInstance()
           .getValue(ConfigHolder.ConfigField.ERROR_CREATE_COIN_CHEST, String.class));
       location.getBlock().breakNaturally();
       return;
     }
-    if (!chests.isBlank()) {
-      chests += ";";
+    CoinChestRegistry.getInstance().add(player, location.getBlock());
+  }
+
+  /**
+   * Reads the {@link ChunkManifest} entry of the given sign from its persistent data.
+   *
+   * @param sign an arbitrary {@link Sign}
+   * @return a filled {@link Optional}, if the sign is a coin sign
+   */
+  public static Optional<ChunkManifest.Entry> toManifestEntry(Sign sign) {
+    PersistentDataContainer dataContainer = sign.getPersistentDataContainer();
+    String owner = dataContainer.get(OWNER, PersistentDataType.STRING);
+    if (!dataContainer.has(KEY, PersistentDataType.STRING) || owner == null) {
+      return Optional.empty();
+    }
+    return BlockUtility.getBlockSupportingSign(sign).map(
+        supporter -> new ChunkManifest.Entry(BlockUtility.packPosition(sign.getBlock()),
+            BlockUtility.packPosition(supporter), UUID.fromString(owner)));
+  }
+
+  /**
+   * Returns the owner of the given coin sign.
+   *
+   * @param block a coin sign
+   * @return {@link UUID} of the owner, empty if the sign has none
+   */
+  static Optional<UUID> getOwner(Block block) {
+    if (!(block.getState() instanceof Sign sign)) {
+      return Optional.empty();
     }
-    chests += newChest.get();
-    container.set(Constants.PLAYER_STORAGE_KEY, PersistentDataType.STRING, chests);
+    String owner = sign.getPersistentDataContainer().get(OWNER, PersistentDataType.STRING);
+    return Optional.ofNullable(owner).map(UUID::fromString);
   }
 }
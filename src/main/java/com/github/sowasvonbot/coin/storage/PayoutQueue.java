@@ -0,0 +1,165 @@
+package com.github.sowasvonbot.coin.storage;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.timings.Timing;
+import com.github.sowasvonbot.timings.Timings;
+import com.github.sowasvonbot.util.ConfigHolder;
+import com.github.sowasvonbot.util.ConfigSnapshot;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Pays buffered coins into the coin chests of players over several ticks. Every tick, players are
+ * served round-robin, each turn moves at most the configured number of coins, until the
+ * configured time budget of the tick is used up.
+ */
+public class PayoutQueue {
+
+  private static final Timing TICK = Timings.getInstance().timing("payout_tick");
+  private static PayoutQueue instance;
+
+  private final Deque<UUID> queue = new ArrayDeque<>();
+  // enqueue time in nanoseconds per queued player
+  private final Map<UUID, Long> enqueued = new HashMap<>();
+  // queued players, whose payout was started by a loaded chunk of one of their coin chests
+  private final Set<UUID> chunkLoadPayouts = new HashSet<>();
+  private @Nullable BukkitTask task;
+
+  private int maxDepth = 0;
+  private long completedPayouts = 0;
+  private long lastDrainNanos = 0;
+  private long maxDrainNanos = 0;
+  private long ticksBudgetExhausted = 0;
+  private long chunkLoadDeliveries = 0;
+
+  private PayoutQueue() {
+  }
+
+  /**
+   * Singleton for the payout queue.
+   *
+   * @return {@link PayoutQueue} of all pending payouts
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static PayoutQueue getInstance() {
+    if (instance == null) {
+      instance = new PayoutQueue();
+    }
+    return instance;
+  }
+
+  /**
+   * Queues the payout of all buffered coins of the player.
+   *
+   * @param player the online player
+   */
+  public void enqueue(Player player) {
+    add(player);
+  }
+
+  /**
+   * Queues the payout of all buffered coins of the player, because a chunk with one of the coin
+   * chests of the player was loaded. The payout counts as chunk load delivery, if its first turn
+   * moves any coins.
+   *
+   * @param player the online player
+   */
+  void enqueueForLoadedChunk(Player player) {
+    if (add(player)) {
+      chunkLoadPayouts.add(player.getUniqueId());
+    }
+  }
+
+  private boolean add(Player player) {
+    UUID playerId = player.getUniqueId();
+    if (enqueued.containsKey(playerId) || CoinBuffer.getInstance().getCoins(player) <= 0) {
+      return false;
+    }
+    enqueued.put(playerId, System.nanoTime());
+    queue.addLast(playerId);
+    maxDepth = Math.max(maxDepth, queue.size());
+    if (task == null) {
+      task = Bukkit.getScheduler().runTaskTimer(RealCoinsPlugin.COINS_PLUGIN, this::tick, 1, 1);
+    }
+    return true;
+  }
+
+  /**
+   * Returns a short description of the queue state, e.g. for commands.
+   *
+   * @return {@link String} with the current metrics
+   */
+  public String getMetrics() {
+    return String.format("payouts queued: %d (max %d), completed: %d, last drain: %d ms "
+            + "(max %d ms), ticks with exhausted budget: %d, delivered on chunk load: %d",
+        queue.size(), maxDepth, completedPayouts, lastDrainNanos / 1_000_000,
+        maxDrainNanos / 1_000_000, ticksBudgetExhausted, chunkLoadDeliveries);
+  }
+
+  private void tick() {
+    long start = TICK.start();
+    try {
+      payOut();
+    } finally {
+      TICK.stop(start);
+    }
+  }
+
+  private void payOut() {
+    ConfigSnapshot config = ConfigHolder.getInstance().getSnapshot();
+    long budgetNanos = config.getInt(ConfigHolder.ConfigField.PAYOUT_TICK_BUDGET) * 1000L;
+    int coinsPerTurn = config.getInt(ConfigHolder.ConfigField.PAYOUT_COINS_PER_TURN);
+    long start = System.nanoTime();
+    while (!queue.isEmpty()) {
+      if (System.nanoTime() - start >= budgetNanos) {
+        ticksBudgetExhausted++;
+        return;
+      }
+      UUID playerId = queue.pollFirst();
+      Player player = Bukkit.getPlayer(playerId);
+      if (player != null && deliver(player, coinsPerTurn)) {
+        queue.addLast(playerId);
+      } else {
+        complete(playerId);
+      }
+    }
+    if (task != null) {
+      task.cancel();
+      task = null;
+    }
+  }
+
+  private boolean deliver(Player player, int coinsPerTurn) {
+    CoinBuffer buffer = CoinBuffer.getInstance();
+    if (!chunkLoadPayouts.remove(player.getUniqueId())) {
+      return buffer.deliverBufferedCoins(player, coinsPerTurn);
+    }
+    long before = buffer.getCoins(player);
+    boolean more = buffer.deliverBufferedCoins(player, coinsPerTurn);
+    if (buffer.getCoins(player) < before) {
+      chunkLoadDeliveries++;
+    }
+    return more;
+  }
+
+  private void complete(UUID playerId) {
+    chunkLoadPayouts.remove(playerId);
+    Long enqueueTime = enqueued.remove(playerId);
+    if (enqueueTime == null) {
+      return;
+    }
+    completedPayouts++;
+    lastDrainNanos = System.nanoTime() - enqueueTime;
+    maxDrainNanos = Math.max(maxDrainNanos, lastDrainNanos);
+  }
+}
@@ -11,6 +11,6 @@ public class PlayerJoinListener implements Listener {
 
   @EventHandler
   public void sendCoinsOnJoin(PlayerJoinEvent event) {
-    CoinBuffer.getInstance().clearPlayerBuffer(event.getPlayer());
+    PayoutQueue.getInstance().enqueue(event.getPlayer());
   }
 }
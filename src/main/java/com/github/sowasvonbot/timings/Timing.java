@@ -0,0 +1,107 @@
+package com.github.sowasvonbot.timings;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Histogram of the durations of one operation. The buckets are powers of two in microseconds, from
+ * 1 µs up to about 1 s, so recording is a few additions without any allocation.
+ */
+public class Timing {
+
+  static final int BUCKETS = 21;
+
+  private final String name;
+  private final LongAdder count = new LongAdder();
+  private final LongAdder totalNanos = new LongAdder();
+  private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+  // the last bucket counts everything above its bound
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKETS + 1);
+
+  Timing(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Starts a measurement.
+   *
+   * @return start time to pass to {@link #stop(long)}
+   */
+  public long start() {
+    return System.nanoTime();
+  }
+
+  /**
+   * Records the time passed since the given start.
+   *
+   * @param start time returned by {@link #start()}
+   */
+  public void stop(long start) {
+    record(System.nanoTime() - start);
+  }
+
+  /**
+   * Records one duration.
+   *
+   * @param nanos the duration in nanoseconds
+   */
+  public void record(long nanos) {
+    count.increment();
+    totalNanos.add(nanos);
+    maxNanos.accumulate(nanos);
+    long micros = TimeUnit.NANOSECONDS.toMicros(nanos);
+    // smallest bucket with micros <= 2^bucket
+    int bucket = micros <= 1 ? 0 : Long.SIZE - Long.numberOfLeadingZeros(micros - 1);
+    buckets.incrementAndGet(Math.min(bucket, BUCKETS));
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  long getCount() {
+    return count.sum();
+  }
+
+  long getTotalNanos() {
+    return totalNanos.sum();
+  }
+
+  long getMaxNanos() {
+    return maxNanos.get();
+  }
+
+  long getBucket(int bucket) {
+    return buckets.get(bucket);
+  }
+
+  /**
+   * Returns the upper bound of the bucket containing the given percentile.
+   *
+   * @param percentile between 0 and 100
+   * @return the upper bound in microseconds, or the maximum for the overflow bucket
+   */
+  long getPercentileMicros(double percentile) {
+    long total = getCount();
+    long rank = (long) Math.ceil(total * percentile / 100);
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKETS; bucket++) {
+      seen += buckets.get(bucket);
+      if (seen >= rank) {
+        return 1L << bucket;
+      }
+    }
+    return TimeUnit.NANOSECONDS.toMicros(getMaxNanos());
+  }
+
+  void reset() {
+    count.reset();
+    totalNanos.reset();
+    maxNanos.reset();
+    for (int bucket = 0; bucket <= BUCKETS; bucket++) {
+      buckets.set(bucket, 0);
+    }
+  }
+}
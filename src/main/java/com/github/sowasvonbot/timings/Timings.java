@@ -0,0 +1,209 @@
+package com.github.sowasvonbot.timings;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Method;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.bukkit.event.Event;
+import org.bukkit.event.EventException;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Registry of all {@link Timing timings} and counters of the plugin. Listeners registered with
+ * {@link #registerEvents(Listener, Plugin)} are timed per handler, other operations hold their own
+ * {@link Timing}. Everything can be written as a Prometheus text file.
+ */
+public class Timings {
+
+  private static final String PREFIX = "realcoins_";
+  private static Timings instance;
+
+  private final Map<String, Timing> timings = new ConcurrentHashMap<>();
+  private final Map<String, LongAdder> counters = new ConcurrentHashMap<>();
+  private @Nullable Path file;
+
+  private Timings() {
+  }
+
+  /**
+   * Singleton for the timings.
+   *
+   * @return {@link Timings} of the plugin
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static Timings getInstance() {
+    if (instance == null) {
+      instance = new Timings();
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the timing with the given name, it is created on the first call.
+   *
+   * @param name name of the operation, e.g. "trade"
+   * @return the {@link Timing}
+   */
+  public Timing timing(String name) {
+    return timings.computeIfAbsent(name, Timing::new);
+  }
+
+  /**
+   * Returns the counter with the given name, it is created on the first call.
+   *
+   * @param name name of the counter, e.g. "coins_delivered"
+   * @return the {@link LongAdder} to count with
+   */
+  public LongAdder counter(String name) {
+    return counters.computeIfAbsent(name, counterName -> new LongAdder());
+  }
+
+  /**
+   * Registers all event handlers of the listener, like
+   * {@link org.bukkit.plugin.PluginManager#registerEvents(Listener, Plugin)} does. Every handler is
+   * timed as "ListenerClass.method(Event)".
+   *
+   * @param listener the {@link Listener} to register
+   * @param plugin   the owning {@link Plugin}
+   */
+  public void registerEvents(Listener listener, Plugin plugin) {
+    for (Method method : listener.getClass().getMethods()) {
+      EventHandler handler = method.getAnnotation(EventHandler.class);
+      if (handler == null || method.getParameterCount() != 1
+          || !Event.class.isAssignableFrom(method.getParameterTypes()[0])) {
+        continue;
+      }
+      Class<? extends Event> eventClass = method.getParameterTypes()[0].asSubclass(Event.class);
+      MethodHandle handle;
+      try {
+        handle = MethodHandles.publicLookup().unreflect(method).bindTo(listener);
+      } catch (IllegalAccessException e) {
+        throw new IllegalStateException(String.format("Can not register %s", method), e);
+      }
+      Timing timing = timing(String.format("%s.%s(%s)", listener.getClass().getSimpleName(),
+          method.getName(), eventClass.getSimpleName()));
+      plugin.getServer().getPluginManager().registerEvent(eventClass, listener,
+          handler.priority(), (ignored, event) -> {
+            // events of other subclasses of the registered class end up here as well
+            if (!eventClass.isInstance(event)) {
+              return;
+            }
+            long start = timing.start();
+            try {
+              handle.invoke(event);
+            } catch (Throwable e) {
+              throw new EventException(e);
+            } finally {
+              timing.stop(start);
+            }
+          }, plugin, handler.ignoreCancelled());
+    }
+  }
+
+  /**
+   * Returns one line per timing, slowest total time first, e.g. for commands.
+   *
+   * @return {@link List} of {@link String descriptions}
+   */
+  public List<String> describe() {
+    List<Timing> sorted = new ArrayList<>(timings.values());
+    sorted.removeIf(timing -> timing.getCount() == 0);
+    sorted.sort((first, second) -> Long.compare(second.getTotalNanos(), first.getTotalNanos()));
+    List<String> lines = new ArrayList<>();
+    for (Timing timing : sorted) {
+      lines.add(String.format(Locale.ROOT,
+          "%s: %d calls, total %.1f ms, avg %.1f µs, p50 <= %d µs, p99 <= %d µs, max %.1f µs",
+          timing.getName(), timing.getCount(), timing.getTotalNanos() / 1e6,
+          timing.getTotalNanos() / 1e3 / timing.getCount(), timing.getPercentileMicros(50),
+          timing.getPercentileMicros(99), timing.getMaxNanos() / 1e3));
+    }
+    counters.forEach((name, counter) -> lines.add(String.format("%s: %d", name, counter.sum())));
+    return lines;
+  }
+
+  /**
+   * Clears all recorded durations, the counters keep their values.
+   */
+  public void reset() {
+    timings.values().forEach(Timing::reset);
+  }
+
+  /**
+   * Sets the file written by {@link #save()}.
+   *
+   * @param file {@link Path} of the Prometheus text file
+   */
+  public void setFile(Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Writes all timings and counters in the Prometheus text format. The file is replaced
+   * atomically, so a scraper never reads a partial file.
+   */
+  public synchronized void save() {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.writeString(temporary, toPrometheus(timings.values()), StandardCharsets.UTF_8);
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger().log(Level.WARNING, e, () -> "Could not write the timings");
+    }
+  }
+
+  private String toPrometheus(Collection<Timing> values) {
+    StringBuilder builder = new StringBuilder();
+    String histogram = PREFIX + "operation_duration_seconds";
+    builder.append("# HELP ").append(histogram).append(" Duration of plugin operations.\n");
+    builder.append("# TYPE ").append(histogram).append(" histogram\n");
+    for (Timing timing : values) {
+      String label = String.format("operation=\"%s\"", escape(timing.getName()));
+      long cumulative = 0;
+      for (int bucket = 0; bucket < Timing.BUCKETS; bucket++) {
+        cumulative += timing.getBucket(bucket);
+        builder.append(String.format(Locale.ROOT, "%s_bucket{%s,le=\"%.6f\"} %d", histogram,
+            label, (1L << bucket) / 1e6, cumulative)).append('\n');
+      }
+      // buckets and sums are read while timings record, count from the buckets to stay consistent
+      cumulative += timing.getBucket(Timing.BUCKETS);
+      builder.append(String.format("%s_bucket{%s,le=\"+Inf\"} %d", histogram, label, cumulative))
+          .append('\n');
+      builder.append(String.format(Locale.ROOT, "%s_sum{%s} %.9f", histogram, label,
+          timing.getTotalNanos() / 1e9)).append('\n');
+      builder.append(String.format("%s_count{%s} %d", histogram, label, cumulative))
+          .append('\n');
+    }
+    counters.forEach((name, counter) -> {
+      String metric = PREFIX + name + "_total";
+      builder.append("# TYPE ").append(metric).append(" counter\n");
+      builder.append(metric).append(' ').append(counter.sum()).append('\n');
+    });
+    return builder.toString();
+  }
+
+  private static String escape(String value) {
+    return value.replace("\\", "\\\\").replace("\"", "\\\"");
+  }
+}
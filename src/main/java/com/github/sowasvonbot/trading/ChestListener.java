@@ -65,7 +65,7 @@ public class ChestListener implements Listener {
     }
 
     if (PlayerUtility.equal(player, TradeSign.getOwnerOffTradingBlock(block))) {
-      handleOwnerBlockUpdate(event.getView().getTopInventory(), block);
+      handleOwnerBlockUpdate(event.getView().getTopInventory(), block, player);
     } else {
       if (topChestClicked && tradingItem.isSimilar(event.getCurrentItem())) {
         return;
@@ -110,7 +110,7 @@ public class ChestListener implements Listener {
       return;
     }
     if (PlayerUtility.equal(player, TradeSign.getOwnerOffTradingBlock(block))) {
-      handleOwnerBlockUpdate(event.getView().getTopInventory(), block);
+      handleOwnerBlockUpdate(event.getView().getTopInventory(), block, player);
     } else {
       event.setCancelled(!handlePlayerBlockUpdate(block, player, event.getView().getTopInventory(),
           event.getCursor()));
@@ -125,28 +125,22 @@ public class ChestListener implements Listener {
    */
   @EventHandler
   public void preventAllInteractions(InventoryMoveItemEvent event) {
-    if (event.getSource().getLocation() == null && event.getDestination().getLocation() == null) {
+    Location source = event.getSource().getLocation();
+    Location destination = event.getDestination().getLocation();
+    if (source == null && destination == null) {
       return;
     }
-    if (event.getSource().getLocation() != null) {
-      Block source = event.getSource().getLocation().getBlock();
-      if (cancelEvent(source)) {
-        event.setCancelled(true);
-        return;
-      }
+    if (source != null && TradeSign.isTradingBlock(source)) {
+      event.setCancelled(true);
+      return;
     }
-    if (event.getDestination().getLocation() != null) {
-      Block destination = event.getDestination().getLocation().getBlock();
-      event.setCancelled(cancelEvent(destination));
+    if (destination != null) {
+      event.setCancelled(TradeSign.isTradingBlock(destination));
     }
   }
 
-  private static boolean cancelEvent(Block block) {
-    return BlockUtility.isPossibleInventoryBlock(block) && TradeSign.isTradingBlock(block);
-  }
-
-  private void handleOwnerBlockUpdate(Inventory inventory, Block block) {
-    TradeSign.restock(block, inventory);
+  private void handleOwnerBlockUpdate(Inventory inventory, Block block, Player owner) {
+    TradeSign.restock(block, inventory, owner);
   }
 
   private boolean handlePlayerBlockUpdate(Block block, Player player, Inventory inventory,
@@ -156,7 +150,7 @@ public class ChestListener implements Listener {
           .getValue(ConfigHolder.ConfigField.ERROR_NOT_COIN_DURING_PAY, String.class));
       return false;
     }
-    player.sendMessage(TradeSign.makeTrade(block, inventory));
+    player.sendMessage(TradeSign.makeTrade(block, inventory, player));
     return true;
   }
 
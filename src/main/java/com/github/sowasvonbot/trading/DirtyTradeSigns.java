@@ -0,0 +1,112 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.util.BlockUtility;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Predicate;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.block.Sign;
+
+/**
+ * Write-behind layer for trade signs. Changes of a sign are kept in its cached
+ * {@link TradeSignModel} and written to the tile entity once at the end of the tick, instead of on
+ * every single change.
+ */
+public class DirtyTradeSigns {
+
+  private static DirtyTradeSigns instance;
+
+  private final Set<IndexedTradeSign> dirtySigns = new LinkedHashSet<>();
+  private boolean flushScheduled = false;
+
+  private DirtyTradeSigns() {
+  }
+
+  /**
+   * Singleton for the dirty trade signs.
+   *
+   * @return {@link DirtyTradeSigns} containing all signs with unwritten changes
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static DirtyTradeSigns getInstance() {
+    if (instance == null) {
+      instance = new DirtyTradeSigns();
+    }
+    return instance;
+  }
+
+  /**
+   * Marks the given sign as changed. The sign is written on the next tick.
+   *
+   * @param tradeSign the changed trade sign
+   */
+  void markDirty(IndexedTradeSign tradeSign) {
+    dirtySigns.add(tradeSign);
+    if (!flushScheduled) {
+      flushScheduled = true;
+      Bukkit.getScheduler().runTask(RealCoinsPlugin.COINS_PLUGIN, this::flushAll);
+    }
+  }
+
+  /**
+   * Writes all changed signs.
+   */
+  public void flushAll() {
+    flushScheduled = false;
+    flush(tradeSign -> true);
+  }
+
+  /**
+   * Writes all changed signs inside the given world.
+   *
+   * @param world {@link World} to flush
+   */
+  public void flushWorld(World world) {
+    flush(tradeSign -> tradeSign.worldId().equals(world.getUID()));
+  }
+
+  /**
+   * Writes all changed signs inside the given chunk.
+   *
+   * @param chunk {@link Chunk} to flush
+   */
+  public void flushChunk(Chunk chunk) {
+    long chunkKey = BlockUtility.packChunk(chunk.getX(), chunk.getZ());
+    flush(tradeSign -> tradeSign.worldId().equals(chunk.getWorld().getUID())
+        && BlockUtility.chunkOfPosition(tradeSign.signPosition()) == chunkKey);
+  }
+
+  private void flush(Predicate<IndexedTradeSign> filter) {
+    if (dirtySigns.isEmpty()) {
+      return;
+    }
+    List<IndexedTradeSign> toFlush = new ArrayList<>();
+    Iterator<IndexedTradeSign> iterator = dirtySigns.iterator();
+    while (iterator.hasNext()) {
+      IndexedTradeSign tradeSign = iterator.next();
+      if (filter.test(tradeSign)) {
+        toFlush.add(tradeSign);
+        iterator.remove();
+      }
+    }
+    toFlush.forEach(DirtyTradeSigns::write);
+  }
+
+  private static void write(IndexedTradeSign tradeSign) {
+    TradeSignModel model = TradeSignIndex.getInstance().getModel(tradeSign);
+    World world = Bukkit.getWorld(tradeSign.worldId());
+    if (model == null || world == null) {
+      return;
+    }
+    if (tradeSign.getSignBlock(world).getState() instanceof Sign sign) {
+      TradeSign.writeSign(sign, model);
+    }
+  }
+}
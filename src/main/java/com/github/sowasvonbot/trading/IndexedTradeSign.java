@@ -0,0 +1,30 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.util.BlockUtility;
+import java.util.UUID;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+
+/**
+ * Entry of the {@link TradeSignIndex}, which describes one trade sign and the block supporting it.
+ *
+ * @param worldId       {@link UUID} of the world the sign is placed in
+ * @param signPosition  packed position of the sign, see {@link BlockUtility#packPosition}
+ * @param blockPosition packed position of the trading block supporting the sign
+ * @param owner         {@link UUID} of the owner of the sign
+ */
+public record IndexedTradeSign(UUID worldId, long signPosition, long blockPosition, UUID owner) {
+
+  public Block getSignBlock(World world) {
+    return getBlock(world, signPosition);
+  }
+
+  public Block getTradingBlock(World world) {
+    return getBlock(world, blockPosition);
+  }
+
+  private static Block getBlock(World world, long position) {
+    return world.getBlockAt(BlockUtility.unpackX(position), BlockUtility.unpackY(position),
+        BlockUtility.unpackZ(position));
+  }
+}
@@ -0,0 +1,129 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.util.BlockUtility;
+import com.github.sowasvonbot.util.ChunkManifest;
+import com.github.sowasvonbot.util.ConfigHolder;
+import com.github.sowasvonbot.util.ProtectedBlockRegistry;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import org.bukkit.Bukkit;
+import org.bukkit.Chunk;
+import org.bukkit.World;
+import org.bukkit.scheduler.BukkitTask;
+
+/**
+ * Scans loaded chunks without a {@link ChunkManifest} over several ticks, e.g. the chunks of an
+ * existing world, which are loaded before the plugin enables. Every tick, chunks are scanned until
+ * the configured time budget is used up. Chunks loaded later are scanned by their load event.
+ *
+ * <p>Queued chunks are known to the {@link TradeSignIndex} and the {@link ProtectedBlockRegistry},
+ * lookups inside them scan the chunk on demand, so its shops stay protected meanwhile.
+ */
+class ManifestBackfill {
+
+  private static ManifestBackfill instance;
+
+  private final Deque<Chunk> pending = new ArrayDeque<>();
+  // world id -> keys of the queued chunks, see BlockUtility#packChunk
+  private final Map<UUID, Set<Long>> pendingChunks = new HashMap<>();
+  private @Nullable BukkitTask task;
+  private int scanned = 0;
+
+  private ManifestBackfill() {
+  }
+
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  static ManifestBackfill getInstance() {
+    if (instance == null) {
+      instance = new ManifestBackfill();
+    }
+    return instance;
+  }
+
+  /**
+   * Queues the scan of a chunk without manifest.
+   *
+   * @param chunk a loaded {@link Chunk}
+   */
+  void enqueue(Chunk chunk) {
+    UUID worldId = chunk.getWorld().getUID();
+    long chunkKey = BlockUtility.packChunk(chunk.getX(), chunk.getZ());
+    if (!pendingChunks.computeIfAbsent(worldId, id -> new HashSet<>()).add(chunkKey)) {
+      return;
+    }
+    ProtectedBlockRegistry.getInstance().markUnscanned(worldId, chunkKey);
+    pending.addLast(chunk);
+    if (task == null) {
+      task = Bukkit.getScheduler().runTaskTimer(RealCoinsPlugin.COINS_PLUGIN, this::tick, 1, 1);
+    }
+  }
+
+  boolean hasPending() {
+    return !pendingChunks.isEmpty();
+  }
+
+  /**
+   * Checks if the chunk is still queued.
+   *
+   * @param world  {@link World} of the chunk
+   * @param chunkX chunk x coordinate
+   * @param chunkZ chunk z coordinate
+   * @return true, if the chunk was not scanned yet
+   */
+  boolean isPending(World world, int chunkX, int chunkZ) {
+    Set<Long> chunks = pendingChunks.get(world.getUID());
+    return chunks != null && chunks.contains(BlockUtility.packChunk(chunkX, chunkZ));
+  }
+
+  /**
+   * Removes the chunk from the queue, e.g. because it is scanned or unloaded.
+   *
+   * @param chunk a queued {@link Chunk}
+   */
+  void remove(Chunk chunk) {
+    UUID worldId = chunk.getWorld().getUID();
+    Set<Long> chunks = pendingChunks.get(worldId);
+    long chunkKey = BlockUtility.packChunk(chunk.getX(), chunk.getZ());
+    if (chunks == null || !chunks.remove(chunkKey)) {
+      return;
+    }
+    if (chunks.isEmpty()) {
+      pendingChunks.remove(worldId);
+    }
+    ProtectedBlockRegistry.getInstance().markScanned(worldId, chunkKey);
+  }
+
+  private void tick() {
+    long budgetNanos = ConfigHolder.getInstance().getSnapshot()
+        .getInt(ConfigHolder.ConfigField.MANIFEST_BACKFILL_BUDGET) * 1000L;
+    long start = System.nanoTime();
+    while (!pending.isEmpty()) {
+      if (System.nanoTime() - start >= budgetNanos) {
+        return;
+      }
+      Chunk chunk = pending.pollFirst();
+      // chunks scanned on demand or unloaded in the meantime are not pending anymore
+      if (isPending(chunk.getWorld(), chunk.getX(), chunk.getZ())) {
+        TradeSignIndex.getInstance().indexChunk(chunk);
+        scanned++;
+      }
+    }
+    if (task != null) {
+      task.cancel();
+      task = null;
+    }
+    if (scanned > 0) {
+      RealCoinsPlugin.getPluginLogger()
+          .info(String.format("Wrote the shop manifests of %d loaded chunks", scanned));
+      scanned = 0;
+    }
+  }
+}
@@ -0,0 +1,80 @@
+package com.github.sowasvonbot.trading;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import javax.annotation.Nullable;
+import org.bukkit.NamespacedKey;
+import org.bukkit.World;
+import org.bukkit.persistence.PersistentDataType;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Monotonic tick counter for the {@link PricingEngine}. Unlike the world time, commands like
+ * {@code /time set} do not move it. The counter is stored in the persistent data of the main
+ * world, so it is saved together with the demand ticks of the trade signs.
+ */
+public class PricingClock {
+
+  private static final NamespacedKey TICK =
+      requireNonNull(NamespacedKey.fromString("pricing_clock_tick", RealCoinsPlugin.COINS_PLUGIN));
+  private static PricingClock instance;
+
+  private @Nullable World world;
+  private long tick = 0;
+
+  private PricingClock() {
+  }
+
+  /**
+   * Singleton for the pricing clock.
+   *
+   * @return {@link PricingClock} of the server
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static PricingClock getInstance() {
+    if (instance == null) {
+      instance = new PricingClock();
+    }
+    return instance;
+  }
+
+  /**
+   * Continues the stored counter and advances it every tick.
+   *
+   * @param plugin the plugin running the clock
+   * @param world  the main {@link World}, which stores the counter
+   */
+  public void start(Plugin plugin, World world) {
+    this.world = world;
+    Long stored = world.getPersistentDataContainer().get(TICK, PersistentDataType.LONG);
+    // demand ticks written before the clock existed are full world times
+    tick = stored == null ? world.getFullTime() : stored;
+    plugin.getServer().getScheduler().runTaskTimer(plugin, () -> tick++, 1, 1);
+  }
+
+  public long getTick() {
+    return tick;
+  }
+
+  /**
+   * Stores the counter, if the given world holds it.
+   *
+   * @param savedWorld the {@link World}, which is saved
+   */
+  public void save(World savedWorld) {
+    if (savedWorld.equals(world)) {
+      savedWorld.getPersistentDataContainer().set(TICK, PersistentDataType.LONG, tick);
+    }
+  }
+
+  /**
+   * Stores the counter, e.g. before the plugin is disabled.
+   */
+  public void save() {
+    if (world != null) {
+      save(world);
+    }
+  }
+}
@@ -0,0 +1,119 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.util.ConfigHolder;
+import com.github.sowasvonbot.util.ConfigSnapshot;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.function.LongSupplier;
+
+/**
+ * Derives the price of shops with dynamic pricing from their demand and stock. The demand is the
+ * number of sold lots, decayed exponentially with the configured half life. Every sale updates it
+ * in constant time, no sale history is needed.
+ *
+ * <p>The effective price is the base price of the sign multiplied with
+ * {@code 1 + demandWeight * demand - stockWeight * lotsInStock}, bounded by the configured minimum
+ * and maximum factor. The engine itself does not depend on the server, time is read from the given
+ * clock.
+ */
+public class PricingEngine {
+
+  private static PricingEngine instance;
+
+  private final LongSupplier clock;
+  private final double decayPerTick;
+  private final double demandWeight;
+  private final double stockWeight;
+  private final double minFactor;
+  private final double maxFactor;
+
+  /**
+   * Creates a new engine.
+   *
+   * @param clock         {@link LongSupplier} returning the current tick
+   * @param halfLifeTicks ticks until the demand halved without sales
+   * @param demandWeight  price increase per lot of demand
+   * @param stockWeight   price decrease per lot in stock
+   * @param minFactor     lower bound of the price factor
+   * @param maxFactor     upper bound of the price factor
+   */
+  public PricingEngine(LongSupplier clock, long halfLifeTicks, double demandWeight,
+      double stockWeight, double minFactor, double maxFactor) {
+    this.clock = clock;
+    this.decayPerTick = Math.log(2) / halfLifeTicks;
+    this.demandWeight = demandWeight;
+    this.stockWeight = stockWeight;
+    this.minFactor = minFactor;
+    this.maxFactor = maxFactor;
+  }
+
+  /**
+   * Singleton for the engine used by the trade signs, configured by the config.yml. The time is the
+   * tick of the {@link PricingClock}.
+   *
+   * @return the {@link PricingEngine}
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static PricingEngine getInstance() {
+    if (instance == null) {
+      ConfigSnapshot config = ConfigHolder.getInstance().getSnapshot();
+      instance = new PricingEngine(PricingClock.getInstance()::getTick,
+          config.getInt(ConfigHolder.ConfigField.DYNAMIC_PRICING_HALF_LIFE),
+          config.getDouble(ConfigHolder.ConfigField.DYNAMIC_PRICING_DEMAND_WEIGHT),
+          config.getDouble(ConfigHolder.ConfigField.DYNAMIC_PRICING_STOCK_WEIGHT),
+          config.getDouble(ConfigHolder.ConfigField.DYNAMIC_PRICING_MIN_FACTOR),
+          config.getDouble(ConfigHolder.ConfigField.DYNAMIC_PRICING_MAX_FACTOR));
+    }
+    return instance;
+  }
+
+  /**
+   * Drops the engine, the next call of {@link #getInstance()} reads the config again.
+   */
+  public static void reload() {
+    instance = null;
+  }
+
+  /**
+   * Returns the state of a shop, which just enabled dynamic pricing.
+   *
+   * @return {@link PricingState} without demand
+   */
+  public PricingState initialState() {
+    return new PricingState(0, clock.getAsLong());
+  }
+
+  /**
+   * Adds a sale to the demand of a shop.
+   *
+   * @param state current {@link PricingState} of the shop
+   * @param lots  int, lots sold
+   * @return the updated {@link PricingState}
+   */
+  public PricingState recordSale(PricingState state, int lots) {
+    long now = clock.getAsLong();
+    return new PricingState(demandAt(state, now) + lots, now);
+  }
+
+  /**
+   * Calculates the price of one lot.
+   *
+   * @param basePrice   int, price set by the owner
+   * @param state       {@link PricingState} of the shop
+   * @param lotsInStock int, lots the shop can still sell
+   * @return the effective price, at least 1 if the base price is positive
+   */
+  public int getPrice(int basePrice, PricingState state, int lotsInStock) {
+    if (basePrice <= 0) {
+      return basePrice;
+    }
+    double factor = 1 + demandWeight * demandAt(state, clock.getAsLong())
+        - stockWeight * lotsInStock;
+    factor = Math.max(minFactor, Math.min(maxFactor, factor));
+    return (int) Math.max(1, Math.min(Integer.MAX_VALUE, Math.round(basePrice * factor)));
+  }
+
+  private double demandAt(PricingState state, long now) {
+    long elapsed = Math.max(0, now - state.tick());
+    return state.rate() * Math.exp(-decayPerTick * elapsed);
+  }
+}
@@ -0,0 +1,10 @@
+package com.github.sowasvonbot.trading;
+
+/**
+ * Demand of a shop with dynamic pricing, see {@link PricingEngine}.
+ *
+ * @param rate double, exponentially decayed number of lots sold, as of {@code tick}
+ * @param tick long, tick the rate was last updated
+ */
+public record PricingState(double rate, long tick) {
+}
@@ -0,0 +1,363 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.util.BlockUtility;
+import com.github.sowasvonbot.util.ItemUtility;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+import org.bukkit.Location;
+import org.bukkit.Material;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Finds the nearest shops selling an item. Shops are kept in an inverted index from the
+ * {@link Material} of the sold item to a spatial grid per world. Unlike the
+ * {@link TradeSignIndex}, shops stay searchable when their chunk unloads, they are only removed
+ * when the sign is broken. The listings are written to a small binary file periodically, so shops
+ * in unloaded chunks stay searchable after a restart.
+ */
+public class ShopFinder {
+
+  private static final int CELL_SHIFT = 6;
+  private static final int VERSION = 1;
+  private static ShopFinder instance;
+
+  private final Map<UUID, Map<Long, ShopListing>> listings = new HashMap<>();
+  private final Map<Material, Map<UUID, Grid>> grids = new EnumMap<>(Material.class);
+  private @Nullable Path file;
+
+  private ShopFinder() {
+  }
+
+  /**
+   * Singleton for the shop finder.
+   *
+   * @return {@link ShopFinder} containing all known shops
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static ShopFinder getInstance() {
+    if (instance == null) {
+      instance = new ShopFinder();
+    }
+    return instance;
+  }
+
+  /**
+   * Finds the nearest shops selling the given material.
+   *
+   * @param location    {@link Location} to search around
+   * @param material    {@link Material} of the item
+   * @param fingerprint {@link OptionalLong}, if filled only shops selling exactly this item match
+   * @param limit       maximum number of shops returned
+   * @param maxDistance maximum distance of a shop in blocks
+   * @return {@link List} of {@link ShopListing ShopListings}, nearest first
+   */
+  public List<ShopListing> findNearest(Location location, Material material,
+      OptionalLong fingerprint, int limit, int maxDistance) {
+    Map<UUID, Grid> worldGrids = grids.get(material);
+    if (worldGrids == null || location.getWorld() == null) {
+      return List.of();
+    }
+    Grid grid = worldGrids.get(location.getWorld().getUID());
+    if (grid == null) {
+      return List.of();
+    }
+    int cellX = location.getBlockX() >> CELL_SHIFT;
+    int cellZ = location.getBlockZ() >> CELL_SHIFT;
+    long maxDistanceSquared = (long) maxDistance * maxDistance;
+    Comparator<ShopListing> byDistance =
+        Comparator.comparingLong(listing -> distanceSquared(location, listing));
+    Predicate<ShopListing> filter = listing ->
+        (fingerprint.isEmpty() || fingerprint.getAsLong() == listing.fingerprint())
+            && distanceSquared(location, listing) <= maxDistanceSquared;
+    List<ShopListing> found = new ArrayList<>();
+    int visited = 0;
+    for (int ring = 0; visited < grid.size && ring <= (maxDistance >> CELL_SHIFT) + 1; ring++) {
+      // only the border of the square, the inner rings were visited already
+      for (int offset = -ring; offset <= ring; offset++) {
+        visited += visitCell(grid, cellX + offset, cellZ - ring, filter, found);
+        if (ring > 0) {
+          visited += visitCell(grid, cellX + offset, cellZ + ring, filter, found);
+        }
+        if (Math.abs(offset) != ring) {
+          visited += visitCell(grid, cellX - ring, cellZ + offset, filter, found);
+          visited += visitCell(grid, cellX + ring, cellZ + offset, filter, found);
+        }
+      }
+      // shops in the next ring are at least this far away
+      long ringDistance = (long) ring << CELL_SHIFT;
+      if (found.size() >= limit) {
+        found.sort(byDistance);
+        if (distanceSquared(location, found.get(limit - 1)) <= ringDistance * ringDistance) {
+          break;
+        }
+      }
+    }
+    found.sort(byDistance);
+    return found.size() > limit ? List.copyOf(found.subList(0, limit)) : found;
+  }
+
+  private static int visitCell(Grid grid, int cellX, int cellZ, Predicate<ShopListing> filter,
+      List<ShopListing> found) {
+    List<ShopListing> cell = grid.cells.get(BlockUtility.packChunk(cellX, cellZ));
+    if (cell == null) {
+      return 0;
+    }
+    for (ShopListing listing : cell) {
+      if (filter.test(listing)) {
+        found.add(listing);
+      }
+    }
+    return cell.size();
+  }
+
+  /**
+   * Adds or updates the listing of the given shop.
+   *
+   * @param tradeSign the shop
+   * @param model     current {@link TradeSignModel} of the shop
+   */
+  void update(IndexedTradeSign tradeSign, TradeSignModel model) {
+    Map<Long, ShopListing> worldListings =
+        listings.computeIfAbsent(tradeSign.worldId(), id -> new HashMap<>());
+    ShopListing previous = worldListings.get(tradeSign.signPosition());
+    Material material = model.item().getType();
+    int price = model.effectivePrice();
+    if (previous != null && previous.shop().equals(tradeSign)
+        && previous.material() == material && previous.fingerprint() == model.fingerprint()
+        && previous.price() == price && previous.pieces() == model.pieces()) {
+      // most changes are trades, which only change the stock
+      if (previous.amount() != model.amount()) {
+        ShopListing listing = new ShopListing(tradeSign, material, previous.fingerprint(),
+            previous.itemName(), price, previous.pieces(), model.amount());
+        worldListings.put(tradeSign.signPosition(), listing);
+        getGrid(previous).replace(previous, listing);
+      }
+      return;
+    }
+    add(new ShopListing(tradeSign, material, model.fingerprint(),
+        ItemUtility.getItemName(model.item()), price, model.pieces(), model.amount()));
+  }
+
+  private void add(ShopListing listing) {
+    IndexedTradeSign tradeSign = listing.shop();
+    ShopListing previous = listings.computeIfAbsent(tradeSign.worldId(), id -> new HashMap<>())
+        .put(tradeSign.signPosition(), listing);
+    if (previous != null) {
+      removeFromGrid(previous);
+    }
+    getGrid(listing).add(listing);
+  }
+
+  private Grid getGrid(ShopListing listing) {
+    return grids.computeIfAbsent(listing.material(), material -> new HashMap<>())
+        .computeIfAbsent(listing.shop().worldId(), id -> new Grid());
+  }
+
+  /**
+   * Checks, if the given shop is known already.
+   *
+   * @param tradeSign the shop
+   * @return true, if the shop is searchable
+   */
+  boolean contains(IndexedTradeSign tradeSign) {
+    Map<Long, ShopListing> worldListings = listings.get(tradeSign.worldId());
+    return worldListings != null && worldListings.containsKey(tradeSign.signPosition());
+  }
+
+  /**
+   * Removes the given shop, e.g. because its sign was broken.
+   *
+   * @param tradeSign the shop
+   */
+  void remove(IndexedTradeSign tradeSign) {
+    Map<Long, ShopListing> worldListings = listings.get(tradeSign.worldId());
+    if (worldListings == null) {
+      return;
+    }
+    ShopListing previous = worldListings.remove(tradeSign.signPosition());
+    if (previous != null) {
+      removeFromGrid(previous);
+    }
+  }
+
+  private void removeFromGrid(ShopListing listing) {
+    Map<UUID, Grid> worldGrids = grids.get(listing.material());
+    if (worldGrids == null) {
+      return;
+    }
+    Grid grid = worldGrids.get(listing.shop().worldId());
+    if (grid != null && grid.remove(listing) && grid.size == 0) {
+      worldGrids.remove(listing.shop().worldId());
+    }
+  }
+
+  /**
+   * Loads the listings from the given file, if it exists. Later calls of {@link #save()} write to
+   * this file.
+   *
+   * @param file {@link Path} of the listings file
+   */
+  public void load(Path file) {
+    this.file = file;
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+      if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != VERSION) {
+        RealCoinsPlugin.getPluginLogger().warning(() -> String.format("Ignoring %s", file));
+        return;
+      }
+      int count = buffer.getInt();
+      for (int i = 0; i < count; i++) {
+        final IndexedTradeSign shop =
+            new IndexedTradeSign(new UUID(buffer.getLong(), buffer.getLong()), buffer.getLong(),
+                buffer.getLong(), new UUID(buffer.getLong(), buffer.getLong()));
+        Material material = Material.getMaterial(readString(buffer));
+        final long fingerprint = buffer.getLong();
+        final String itemName = readString(buffer);
+        ShopListing listing = new ShopListing(shop, material, fingerprint, itemName,
+            buffer.getInt(), buffer.getInt(), buffer.getInt());
+        // materials removed by a server update
+        if (material != null) {
+          add(listing);
+        }
+      }
+    } catch (IOException | BufferUnderflowException e) {
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> "Could not read the shop listings");
+    }
+  }
+
+  /**
+   * Writes all listings. Has to be called from the main thread, the file is written
+   * asynchronously, if a plugin is given.
+   *
+   * @param plugin {@link Plugin} writing the file asynchronously, null writes it right away
+   */
+  public void save(@Nullable Plugin plugin) {
+    if (file == null) {
+      return;
+    }
+    List<byte[]> records = new ArrayList<>();
+    int size = 2 * Integer.BYTES;
+    for (Map<Long, ShopListing> worldListings : listings.values()) {
+      for (ShopListing listing : worldListings.values()) {
+        byte[] material = listing.material().name().getBytes(StandardCharsets.UTF_8);
+        byte[] itemName = listing.itemName().getBytes(StandardCharsets.UTF_8);
+        ByteBuffer record = ByteBuffer.allocate(
+            7 * Long.BYTES + 5 * Integer.BYTES + material.length + itemName.length);
+        IndexedTradeSign shop = listing.shop();
+        record.putLong(shop.worldId().getMostSignificantBits());
+        record.putLong(shop.worldId().getLeastSignificantBits());
+        record.putLong(shop.signPosition());
+        record.putLong(shop.blockPosition());
+        record.putLong(shop.owner().getMostSignificantBits());
+        record.putLong(shop.owner().getLeastSignificantBits());
+        record.putInt(material.length).put(material);
+        record.putLong(listing.fingerprint());
+        record.putInt(itemName.length).put(itemName);
+        record.putInt(listing.price());
+        record.putInt(listing.pieces());
+        record.putInt(listing.amount());
+        records.add(record.array());
+        size += record.capacity();
+      }
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    buffer.putInt(VERSION);
+    buffer.putInt(records.size());
+    records.forEach(buffer::put);
+    Path target = file;
+    if (plugin == null) {
+      write(target, buffer.array());
+    } else {
+      plugin.getServer().getScheduler()
+          .runTaskAsynchronously(plugin, () -> write(target, buffer.array()));
+    }
+  }
+
+  private static synchronized void write(Path file, byte[] data) {
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.write(temporary, data);
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> "Could not write the shop listings");
+    }
+  }
+
+  private static String readString(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.getInt()];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static long distanceSquared(Location location, ShopListing listing) {
+    long position = listing.shop().blockPosition();
+    long x = BlockUtility.unpackX(position) - location.getBlockX();
+    long y = BlockUtility.unpackY(position) - location.getBlockY();
+    long z = BlockUtility.unpackZ(position) - location.getBlockZ();
+    return x * x + y * y + z * z;
+  }
+
+  private static long cellOf(ShopListing listing) {
+    long position = listing.shop().blockPosition();
+    return BlockUtility.packChunk(BlockUtility.unpackX(position) >> CELL_SHIFT,
+        BlockUtility.unpackZ(position) >> CELL_SHIFT);
+  }
+
+  private static class Grid {
+    private final Map<Long, List<ShopListing>> cells = new HashMap<>();
+    private int size = 0;
+
+    private void add(ShopListing listing) {
+      cells.computeIfAbsent(cellOf(listing), cell -> new ArrayList<>()).add(listing);
+      size++;
+    }
+
+    private void replace(ShopListing previous, ShopListing listing) {
+      List<ShopListing> cell = cells.get(cellOf(previous));
+      int index = cell == null ? -1 : cell.indexOf(previous);
+      if (index < 0) {
+        add(listing);
+        return;
+      }
+      cell.set(index, listing);
+    }
+
+    private boolean remove(ShopListing listing) {
+      long cellKey = cellOf(listing);
+      List<ShopListing> cell = cells.get(cellKey);
+      if (cell == null || !cell.remove(listing)) {
+        return false;
+      }
+      if (cell.isEmpty()) {
+        cells.remove(cellKey);
+      }
+      size--;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.github.sowasvonbot.trading;
+
+import org.bukkit.Material;
+
+/**
+ * Searchable offer of one shop, see {@link ShopFinder}.
+ *
+ * @param shop        {@link IndexedTradeSign} offering the item
+ * @param material    {@link Material} of the sold item
+ * @param fingerprint long, fingerprint of the sold item
+ * @param itemName    {@link String} name of the sold item
+ * @param price       int, coins needed for one trade
+ * @param pieces      int, pieces received per trade
+ * @param amount      int, pieces in stock
+ */
+public record ShopListing(IndexedTradeSign shop, Material material, long fingerprint,
+                          String itemName, int price, int pieces, int amount) {
+
+  /**
+   * Returns the price of a single piece.
+   *
+   * @return coins per piece, {@link Double#POSITIVE_INFINITY} if the shop sells nothing per trade
+   */
+  public double pricePerPiece() {
+    return pieces == 0 ? Double.POSITIVE_INFINITY : (double) price / pieces;
+  }
+}
@@ -42,8 +42,7 @@ public class SignListener implements Listener {
     }
     String firstLine = sign.getLine(0);
     if (!firstLine.equals(ConfigHolder.getInstance()
-        .getValue(ConfigHolder.ConfigField.STORAGE_CHEST_PREFIX, String.class,
-            ConfigHolder.getMaxCharsPredicate(BlockUtility.SIGN_LINE_LENGTH)))
+        .getValue(ConfigHolder.ConfigField.STORAGE_CHEST_PREFIX, String.class))
         && !TradeSign.isTradingSign(event.getClickedBlock())) {
       return;
     }
@@ -102,8 +101,7 @@ public class SignListener implements Listener {
   public void preventCreatingTradingSignIfSignAlreadyPresent(SignChangeEvent event) {
     Optional<Sign> potentialSign = BlockUtility.checkIfBlockIsSignWithPrefix(event.getBlock(),
         ConfigHolder.getInstance()
-            .getValue(ConfigHolder.ConfigField.STORAGE_CHEST_PREFIX, String.class,
-                ConfigHolder.getMaxCharsPredicate(BlockUtility.SIGN_LINE_LENGTH)),
+            .getValue(ConfigHolder.ConfigField.STORAGE_CHEST_PREFIX, String.class),
         event.getLines());
     if (potentialSign.isEmpty()) {
       return;
@@ -1,6 +1,8 @@
 package com.github.sowasvonbot.trading;
 
+import com.github.sowasvonbot.trading.stats.ShopStatistics;
 import com.github.sowasvonbot.util.BreakListener;
+import com.github.sowasvonbot.util.ChunkManifest;
 import com.github.sowasvonbot.util.PlayerUtility;
 import java.util.Optional;
 import org.bukkit.GameMode;
@@ -40,5 +42,11 @@ public class TradeBlockBreakListener extends BreakListener {
       return;
     }
     TradeSign.spawnItemsOnDestroy(event.getBlock());
+    if (TradeSign.isTradingSign(event.getBlock())) {
+      TradeSignIndex.getInstance().get(event.getBlock())
+          .ifPresent(ShopStatistics.getInstance()::remove);
+      TradeSignIndex.getInstance().remove(event.getBlock());
+      ChunkManifest.remove(event.getBlock(), ChunkManifest.Kind.TRADE_SIGN);
+    }
   }
 }
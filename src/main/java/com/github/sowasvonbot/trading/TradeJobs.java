@@ -0,0 +1,161 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.coin.Coin;
+import com.github.sowasvonbot.timings.Timing;
+import com.github.sowasvonbot.timings.Timings;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import javax.annotation.Nullable;
+import org.bukkit.Bukkit;
+import org.bukkit.OfflinePlayer;
+import org.bukkit.block.Block;
+import org.bukkit.inventory.Inventory;
+
+/**
+ * Coalesces trades and restocks per trading block. Every click used to schedule its own task, now
+ * all requests of a tick are run by one task in the next tick and requests for a block with a
+ * pending job are merged into it. Each block is settled once per tick and buyer, no matter how
+ * often it was clicked. Buyers sharing a block in one tick only pay with the coins they put in.
+ */
+class TradeJobs {
+
+  private static final Timing TRADE = Timings.getInstance().timing("trade");
+  private static final Timing RESTOCK = Timings.getInstance().timing("restock");
+  private static final LongAdder SCHEDULED =
+      Timings.getInstance().counter("trade_jobs_scheduled");
+  private static final LongAdder COLLAPSED =
+      Timings.getInstance().counter("trade_jobs_collapsed");
+  private static TradeJobs instance;
+
+  private final Map<IndexedTradeSign, Job> pending = new LinkedHashMap<>();
+
+  private TradeJobs() {
+  }
+
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  static TradeJobs getInstance() {
+    if (instance == null) {
+      instance = new TradeJobs();
+    }
+    return instance;
+  }
+
+  /**
+   * Requests a trade with the coins inside the inventory. Clicks of the same buyer are settled
+   * together. The coins of a click are not inside the inventory yet, so all coins counted now
+   * belong to the earlier buyers of the pending trade.
+   *
+   * @param block     the trading block
+   * @param tradeSign the {@link IndexedTradeSign} of the block
+   * @param inventory the {@link Inventory} of the block
+   * @param buyer     {@link OfflinePlayer} paying for the trade
+   */
+  void trade(Block block, IndexedTradeSign tradeSign, Inventory inventory, OfflinePlayer buyer) {
+    Job job = getJob(block, tradeSign, inventory);
+    if (job.buyers.isEmpty()) {
+      job.buyers.add(new Contribution(buyer, 0));
+    } else if (!job.buyers.get(job.buyers.size() - 1).buyer().getUniqueId()
+        .equals(buyer.getUniqueId())) {
+      job.buyers.add(new Contribution(buyer, Coin.countValue(inventory)));
+    }
+  }
+
+  /**
+   * Requests a restock with the items inside the inventory. If nothing can be restocked, the owner
+   * trades like a buyer.
+   *
+   * @param block     the trading block
+   * @param tradeSign the {@link IndexedTradeSign} of the block
+   * @param inventory the {@link Inventory} of the block
+   * @param owner     {@link OfflinePlayer} owning the block
+   */
+  void restock(Block block, IndexedTradeSign tradeSign, Inventory inventory,
+      OfflinePlayer owner) {
+    getJob(block, tradeSign, inventory).owner = owner;
+  }
+
+  private Job getJob(Block block, IndexedTradeSign tradeSign, Inventory inventory) {
+    Job job = pending.get(tradeSign);
+    if (job != null) {
+      COLLAPSED.increment();
+      return job;
+    }
+    if (pending.isEmpty()) {
+      Bukkit.getScheduler().runTask(RealCoinsPlugin.COINS_PLUGIN, this::runPending);
+    }
+    SCHEDULED.increment();
+    job = new Job(block, inventory);
+    pending.put(tradeSign, job);
+    return job;
+  }
+
+  private void runPending() {
+    Map<IndexedTradeSign, Job> jobs = new LinkedHashMap<>(pending);
+    pending.clear();
+    jobs.forEach(TradeJobs::run);
+  }
+
+  private static void run(IndexedTradeSign tradeSign, Job job) {
+    boolean restocked = false;
+    // restock first, otherwise the items of a trade in the same tick would be restocked again
+    if (job.owner != null) {
+      long start = RESTOCK.start();
+      try {
+        restocked = TradeSign.actualRestock(job.block, tradeSign, job.inventory);
+      } finally {
+        RESTOCK.stop(start);
+      }
+    }
+    List<Contribution> buyers = job.buyers;
+    if (buyers.isEmpty()) {
+      if (job.owner != null && !restocked) {
+        settle(tradeSign, job, job.owner, Long.MAX_VALUE);
+      }
+      return;
+    }
+    // coins inside the inventory, before any buyer paid
+    long coins = buyers.size() > 1 ? Coin.countValue(job.inventory) : Long.MAX_VALUE;
+    for (int i = 0; i < buyers.size(); i++) {
+      long coinsAfter = i + 1 < buyers.size() ? buyers.get(i + 1).coinsBefore() : coins;
+      settle(tradeSign, job, buyers.get(i).buyer(),
+          Math.max(0, coinsAfter - buyers.get(i).coinsBefore()));
+    }
+  }
+
+  private static void settle(IndexedTradeSign tradeSign, Job job, OfflinePlayer buyer,
+      long maxCoins) {
+    long start = TRADE.start();
+    try {
+      TradeSign.settleTrade(job.block, tradeSign, job.inventory, buyer, maxCoins);
+    } finally {
+      TRADE.stop(start);
+    }
+  }
+
+  /**
+   * One buyer of a pending trade.
+   *
+   * @param buyer       {@link OfflinePlayer} paying
+   * @param coinsBefore long, value of the coins inside the inventory before the first click of the
+   *                    buyer
+   */
+  private record Contribution(OfflinePlayer buyer, long coinsBefore) {
+  }
+
+  private static class Job {
+    private final Block block;
+    private final Inventory inventory;
+    private final List<Contribution> buyers = new ArrayList<>();
+    private @Nullable OfflinePlayer owner;
+
+    private Job(Block block, Inventory inventory) {
+      this.block = block;
+      this.inventory = inventory;
+    }
+  }
+}
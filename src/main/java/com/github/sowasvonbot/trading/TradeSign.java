@@ -5,16 +5,23 @@ import static java.util.Objects.requireNonNull;
 import com.github.sowasvonbot.RealCoinsPlugin;
 import com.github.sowasvonbot.coin.Coin;
 import com.github.sowasvonbot.coin.storage.CoinBuffer;
+import com.github.sowasvonbot.trading.ledger.TradeLedger;
+import com.github.sowasvonbot.trading.ledger.TradeRecord;
+import com.github.sowasvonbot.trading.stats.ShopStatistics;
 import com.github.sowasvonbot.util.BlockUtility;
+import com.github.sowasvonbot.util.ChunkManifest;
 import com.github.sowasvonbot.util.ItemConverter;
 import com.github.sowasvonbot.util.ItemUtility;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.function.UnaryOperator;
 import javax.annotation.Nullable;
 import org.bukkit.Bukkit;
+import org.bukkit.Location;
 import org.bukkit.NamespacedKey;
 import org.bukkit.OfflinePlayer;
+import org.bukkit.World;
 import org.bukkit.block.Block;
 import org.bukkit.block.Sign;
 import org.bukkit.inventory.BlockInventoryHolder;
@@ -39,6 +46,10 @@ public class TradeSign {
       requireNonNull(NamespacedKey.fromString("trade_sign_price", RealCoinsPlugin.COINS_PLUGIN));
   private static final NamespacedKey PIECES =
       requireNonNull(NamespacedKey.fromString("trade_sign_pieces", RealCoinsPlugin.COINS_PLUGIN));
+  private static final NamespacedKey DEMAND =
+      requireNonNull(NamespacedKey.fromString("trade_sign_demand", RealCoinsPlugin.COINS_PLUGIN));
+  private static final NamespacedKey DEMAND_TICK = requireNonNull(
+      NamespacedKey.fromString("trade_sign_demand_tick", RealCoinsPlugin.COINS_PLUGIN));
 
   /**
    * Converts the given sign to a trading sign, e.g. saves the correct persistent data.
@@ -60,8 +71,11 @@ public class TradeSign {
     if (inventory.get().getItem(0) != null) {
       return false;
     }
-    Optional<String> serializedItem = ItemConverter.convertToBase64(item);
-    if (serializedItem.isEmpty()) {
+    Optional<byte[]> serializedItem = ItemConverter.convertToBytes(item);
+    // Items the binary format can not represent are still stored in the legacy format
+    Optional<String> legacySerializedItem =
+        serializedItem.isEmpty() ? ItemConverter.convertToBase64(item) : Optional.empty();
+    if (serializedItem.isEmpty() && legacySerializedItem.isEmpty()) {
       return false;
     }
 
@@ -75,7 +89,10 @@ public class TradeSign {
     PersistentDataContainer dataContainer = sign.getPersistentDataContainer();
     dataContainer.set(KEY, PersistentDataType.INTEGER, 1);
     dataContainer.set(AMOUNT, PersistentDataType.INTEGER, 0);
-    dataContainer.set(MATERIAL, PersistentDataType.STRING, serializedItem.get());
+    serializedItem.ifPresent(
+        bytes -> dataContainer.set(MATERIAL, PersistentDataType.BYTE_ARRAY, bytes));
+    legacySerializedItem.ifPresent(
+        string -> dataContainer.set(MATERIAL, PersistentDataType.STRING, string));
     dataContainer.set(OWNER, PersistentDataType.STRING, player.getUniqueId().toString());
     dataContainer.set(PRICE, PersistentDataType.INTEGER, 0);
     dataContainer.set(PIECES, PersistentDataType.INTEGER, item.getAmount());
@@ -84,7 +101,16 @@ public class TradeSign {
         String.format("§0§l %s", player.getName() == null ? "ERROR" : player.getName()));
     sign.setLine(1, String.format("%s", ItemUtility.getItemName(item)));
     sign.setGlowingText(true);
-    updateSign(sign);
+    updateSign(sign, item.getAmount(), 0, 0);
+    BlockUtility.getBlockSupportingSign(sign).ifPresent(tradingBlock -> {
+      IndexedTradeSign tradeSign =
+          TradeSignIndex.getInstance().add(sign, tradingBlock, player.getUniqueId());
+      ShopStatistics.getInstance().register(tradeSign);
+      ChunkManifest.add(sign.getBlock(), ChunkManifest.Kind.TRADE_SIGN, new ChunkManifest.Entry(
+          tradeSign.signPosition(), tradeSign.blockPosition(), tradeSign.owner()));
+    });
+    // decoding the model makes the shop searchable
+    getModel(sign.getBlock());
 
     return true;
   }
@@ -96,7 +122,9 @@ public class TradeSign {
    * @return true, if the block is a valid trading sign
    */
   public static boolean isTradingSign(Block block) {
-    return BlockUtility.isWallSignWithKey(block, KEY);
+    return TradeSignIndex.getInstance().get(block)
+        .filter(tradeSign -> tradeSign.signPosition() == BlockUtility.packPosition(block))
+        .isPresent();
   }
 
   /**
@@ -106,14 +134,50 @@ public class TradeSign {
    * @return true, if the block is a valid trading block
    */
   public static boolean isTradingBlock(Block block) {
-    if (!BlockUtility.isPossibleInventoryBlock(block)) {
+    return TradeSignIndex.getInstance().get(block)
+        .filter(tradeSign -> tradeSign.blockPosition() == BlockUtility.packPosition(block))
+        .isPresent();
+  }
+
+  /**
+   * Checks if the given location is a valid trading block. Locations inside chunks without any
+   * trade shop are rejected without resolving a {@link Block}.
+   *
+   * @param location {@link Location} to check
+   * @return true, if the location is a valid trading block
+   */
+  public static boolean isTradingBlock(Location location) {
+    World world = location.getWorld();
+    int x = location.getBlockX();
+    int y = location.getBlockY();
+    int z = location.getBlockZ();
+    if (world == null || !TradeSignIndex.getInstance().mayContainShop(world, x >> 4, z >> 4)) {
       return false;
     }
-    return getTradingSign(block).isPresent();
+    return TradeSignIndex.getInstance().get(world, x, y, z)
+        .filter(tradeSign -> tradeSign.blockPosition() == BlockUtility.packPosition(x, y, z))
+        .isPresent();
   }
 
-  private static Optional<Block> getTradingSign(Block block) {
-    return BlockUtility.getTouchingWallSignWithKey(block, KEY);
+  /**
+   * Reads the index entry of the given sign from its persistent data.
+   *
+   * @param sign an arbitrary {@link Sign}
+   * @return a filled {@link Optional}, if the sign is a valid trading sign
+   */
+  static Optional<IndexedTradeSign> toIndexEntry(Sign sign) {
+    PersistentDataContainer dataContainer = sign.getPersistentDataContainer();
+    if (!dataContainer.has(KEY, PersistentDataType.INTEGER)) {
+      return Optional.empty();
+    }
+    String owner = dataContainer.get(OWNER, PersistentDataType.STRING);
+    Optional<Block> tradingBlock = BlockUtility.getBlockSupportingSign(sign);
+    if (owner == null || tradingBlock.isEmpty()) {
+      return Optional.empty();
+    }
+    return Optional.of(new IndexedTradeSign(sign.getWorld().getUID(),
+        BlockUtility.packPosition(sign.getBlock()), BlockUtility.packPosition(tradingBlock.get()),
+        UUID.fromString(owner)));
   }
 
   /**
@@ -123,16 +187,9 @@ public class TradeSign {
    * @return {@link OfflinePlayer}, because the owner might not be online
    */
   public static @Nullable OfflinePlayer getOwnerOffTradingBlock(Block block) {
-    Optional<Block> tradingSign = getTradingSign(block);
-    if (tradingSign.isEmpty()) {
-      // TODO refactor to good value
-      return null;
-    }
-    if (!(tradingSign.get().getState() instanceof Sign sign)) {
-      return null;
-    }
-    return Bukkit.getOfflinePlayer(
-        UUID.fromString(sign.getPersistentDataContainer().get(OWNER, PersistentDataType.STRING)));
+    Optional<IndexedTradeSign> tradingSign = TradeSignIndex.getInstance().get(block);
+    // TODO refactor to good value
+    return tradingSign.map(tradeSign -> Bukkit.getOfflinePlayer(tradeSign.owner())).orElse(null);
   }
 
   /**
@@ -141,72 +198,109 @@ public class TradeSign {
    *
    * @param block     {@link Block} chest for the trade attempt
    * @param inventory {@link Inventory} to update in the trade
+   * @param buyer     {@link OfflinePlayer} paying for the trade
    * @return error message if there was an error during trading, otherwise "success"
    */
-  static String makeTrade(Block block, Inventory inventory) {
-    Optional<Block> possibleTradingSign = getTradingSign(block);
-    if (possibleTradingSign.isEmpty()) {
+  static String makeTrade(Block block, Inventory inventory, OfflinePlayer buyer) {
+    Optional<IndexedTradeSign> tradeSign = TradeSignIndex.getInstance().get(block);
+    if (tradeSign.isEmpty()) {
       return "Not a trading Block";
     }
-    if (!(possibleTradingSign.get().getState() instanceof Sign sign)) {
-      return "error converting block to sign";
+    if (getModel(block).isEmpty()) {
+      return "error reading the trading sign";
     }
-    int price = sign.getPersistentDataContainer().get(PRICE, PersistentDataType.INTEGER);
-    int available = sign.getPersistentDataContainer().get(AMOUNT, PersistentDataType.INTEGER);
-    int pieces = sign.getPersistentDataContainer().get(PIECES, PersistentDataType.INTEGER);
-
-    OfflinePlayer targetPlayer = Bukkit.getOfflinePlayer(
-        UUID.fromString(sign.getPersistentDataContainer().get(OWNER, PersistentDataType.STRING)));
 
-    ItemStack target = getSignItem(sign);
-
-    Bukkit.getScheduler().runTask(RealCoinsPlugin.COINS_PLUGIN, () -> {
-      int coinAmount = 0;
-      for (ItemStack itemStack : inventory.getStorageContents()) {
-        coinAmount += Coin.isCoin(itemStack) ? itemStack.getAmount() : 0;
-      }
-      for (Transaction transaction : Transaction.getMaximumPossibleTransactions(available, price,
-          pieces, coinAmount)) {
-        removeCoinsFromInventory(inventory, transaction.price(), targetPlayer);
-        addBuyedItemsToInventory(inventory, sign, transaction.amount(), target);
-        sign.update();
-        updateSign(sign);
-      }
-    });
+    TradeJobs.getInstance().trade(block, tradeSign.get(), inventory, buyer);
     return "success";
   }
 
-  private static void addBuyedItemsToInventory(Inventory inventory, Sign sign, int amount,
-      ItemStack item) {
+  /**
+   * Settles the trade with the coins inside the inventory, run by {@link TradeJobs}.
+   *
+   * @param maxCoins long, value of the coins the buyer put into the inventory, at most all coins
+   *                 inside it are used
+   */
+  static void settleTrade(Block block, IndexedTradeSign tradeSign, Inventory inventory,
+      OfflinePlayer buyer, long maxCoins) {
+    // read when the task runs, earlier trades of this tick might have changed the stock
+    TradeSignModel model = TradeSignIndex.getInstance().getModel(tradeSign);
+    if (model == null) {
+      return;
+    }
+    int coinAmount =
+        (int) Math.min(Integer.MAX_VALUE, Math.min(maxCoins, Coin.countValue(inventory)));
+    Transaction transaction =
+        Transaction.getMaximumPossibleTransactions(model.amount(), model.effectivePrice(),
+            model.pieces(), coinAmount);
+    if (transaction.isEmpty()) {
+      return;
+    }
+    removeCoinsFromInventory(inventory, transaction.price(),
+        Bukkit.getOfflinePlayer(model.owner()));
+    addBuyedItemsToInventory(inventory, tradeSign, block, transaction.amount(),
+        model.item());
+    if (model.pricing() != null) {
+      updateModel(tradeSign, current -> current.withPricing(
+          PricingEngine.getInstance().recordSale(model.pricing(), transaction.lots())));
+    }
+    TradeLedger.getInstance().record(
+        new TradeRecord(System.currentTimeMillis(), tradeSign.worldId(),
+            tradeSign.blockPosition(), buyer.getUniqueId(), model.owner(),
+            model.fingerprint(), transaction.lots(), transaction.price(),
+            Math.max(0, model.amount() - transaction.amount())));
+    ShopStatistics.getInstance().recordSale(tradeSign, transaction.lots(),
+        transaction.price(), block.getWorld().getFullTime());
+  }
+
+  private static void addBuyedItemsToInventory(Inventory inventory, IndexedTradeSign tradeSign,
+      Block block, int amount, ItemStack item) {
     ItemStack clone = item.clone();
     clone.setAmount(amount);
     Map<Integer, ItemStack> remainingItems = inventory.addItem(clone);
+    Location dropLocation = tradeSign.getSignBlock(block.getWorld()).getLocation();
     for (ItemStack itemStack : remainingItems.values()) {
-      sign.getBlock().getWorld().dropItemNaturally(sign.getBlock().getLocation(), itemStack);
+      // the remaining stack might be larger than a stack can be
+      int remaining = itemStack.getAmount();
+      while (remaining > 0) {
+        ItemStack drop = itemStack.clone();
+        drop.setAmount(Math.min(remaining, item.getMaxStackSize()));
+        block.getWorld().dropItemNaturally(dropLocation, drop);
+        remaining -= drop.getAmount();
+      }
     }
-    addToIntegerNamespace(sign, AMOUNT, amount * -1);
+    addToIntegerNamespace(tradeSign, AMOUNT, amount * -1);
   }
 
   private static void removeCoinsFromInventory(Inventory inventory, int amount,
       OfflinePlayer receiver) {
-    for (ItemStack itemStack : inventory.getStorageContents()) {
-      if (amount == 0) {
-        return;
-      }
-      if (!Coin.isCoin(itemStack)) {
-        continue;
-      }
-      int reduce = Math.min(itemStack.getAmount(), amount);
-      itemStack.setAmount(itemStack.getAmount() - reduce);
-      amount -= reduce;
-      CoinBuffer.getInstance().sendCoins(receiver, reduce);
+    long removed = Coin.withdraw(inventory, amount);
+    if (removed > 0) {
+      CoinBuffer.getInstance().sendCoins(receiver, removed);
+    }
+  }
+
+  /**
+   * Writes the given model to the persistent data and the text of the sign.
+   *
+   * @param sign  the trading {@link Sign} to write
+   * @param model the current {@link TradeSignModel} of the sign
+   */
+  static void writeSign(Sign sign, TradeSignModel model) {
+    PersistentDataContainer dataContainer = sign.getPersistentDataContainer();
+    dataContainer.set(AMOUNT, PersistentDataType.INTEGER, model.amount());
+    dataContainer.set(PRICE, PersistentDataType.INTEGER, model.price());
+    dataContainer.set(PIECES, PersistentDataType.INTEGER, model.pieces());
+    if (model.pricing() == null) {
+      dataContainer.remove(DEMAND);
+      dataContainer.remove(DEMAND_TICK);
+    } else {
+      dataContainer.set(DEMAND, PersistentDataType.DOUBLE, model.pricing().rate());
+      dataContainer.set(DEMAND_TICK, PersistentDataType.LONG, model.pricing().tick());
     }
+    updateSign(sign, model.pieces(), model.effectivePrice(), model.amount());
   }
 
-  private static void updateSign(Sign sign) {
-    int pieces = sign.getPersistentDataContainer().get(PIECES, PersistentDataType.INTEGER);
-    int price = sign.getPersistentDataContainer().get(PRICE, PersistentDataType.INTEGER);
-    int amount = sign.getPersistentDataContainer().get(AMOUNT, PersistentDataType.INTEGER);
+  private static void updateSign(Sign sign, int pieces, int price, int amount) {
     String pieceColor = amount < pieces || pieces == 0 ? "§4" : "§2";
     String priceColor = price == 0 ? "§4" : "§2";
     sign.setLine(2, String.format("%s§l%d§0 = %s§l%d§0 ¢", pieceColor, pieces, priceColor, price));
@@ -219,36 +313,40 @@ public class TradeSign {
    *
    * @param block     the trading block to restock
    * @param inventory the {@link Inventory} of the block
+   * @param owner     {@link OfflinePlayer} owning the trading block
    */
-  public static void restock(Block block, Inventory inventory) {
-    Optional<Block> possibleTradingSign = getTradingSign(block);
-    if (possibleTradingSign.isEmpty()) {
+  public static void restock(Block block, Inventory inventory, OfflinePlayer owner) {
+    Optional<IndexedTradeSign> tradeSign = TradeSignIndex.getInstance().get(block);
+    if (tradeSign.isEmpty()) {
       return;
     }
-    if (!(possibleTradingSign.get().getState() instanceof Sign sign)) {
-      return;
-    }
-    Bukkit.getScheduler().runTask(RealCoinsPlugin.COINS_PLUGIN, () -> {
-      if (!actualRestock(sign, inventory)) {
-        makeTrade(block, inventory);
-      }
-    });
+    TradeJobs.getInstance().restock(block, tradeSign.get(), inventory, owner);
   }
 
-  private static boolean actualRestock(Sign sign, Inventory inventory) {
+  /**
+   * Moves all items of the trading item inside the inventory into the stock, run by
+   * {@link TradeJobs}.
+   *
+   * @return true, if any item was restocked
+   */
+  static boolean actualRestock(Block block, IndexedTradeSign tradeSign,
+      Inventory inventory) {
+    Optional<TradeSignModel> model = getModel(block);
+    if (model.isEmpty()) {
+      return false;
+    }
     boolean restockSuccessful = false;
-    ItemStack target = getSignItem(sign);
     for (ItemStack itemStack : inventory.getStorageContents()) {
-      if (itemStack == null || ItemUtility.isUniqueItem(itemStack) || !itemStack.isSimilar(
-          target)) {
+      if (itemStack == null || ItemUtility.isUniqueItem(itemStack) || !model.get()
+          .isSimilarItem(itemStack)) {
         continue;
       }
-      addToIntegerNamespace(sign, AMOUNT, itemStack.getAmount());
+      addToIntegerNamespace(tradeSign, AMOUNT, itemStack.getAmount());
       itemStack.setAmount(0);
       restockSuccessful = true;
     }
     if (restockSuccessful) {
-      updateSign(sign);
+      ShopStatistics.getInstance().recordRestock(tradeSign);
     }
     return restockSuccessful;
   }
@@ -258,9 +356,11 @@ public class TradeSign {
       return;
     }
     Sign sign = (Sign) block.getState();
-    int amount = sign.getPersistentDataContainer().get(AMOUNT, PersistentDataType.INTEGER);
-    ItemStack item = ItemConverter.convertToItem(
-        sign.getPersistentDataContainer().get(MATERIAL, PersistentDataType.STRING));
+    Optional<TradeSignModel> model = getModel(block);
+    // the cached model might contain changes, which are not written to the sign yet
+    int amount = model.map(TradeSignModel::amount)
+        .orElseGet(() -> sign.getPersistentDataContainer().get(AMOUNT, PersistentDataType.INTEGER));
+    ItemStack item = model.map(TradeSignModel::item).orElseGet(() -> readSignItem(sign));
     if (item == null) {
       return;
     }
@@ -278,38 +378,152 @@ public class TradeSign {
   }
 
   protected static void changePrice(Sign sign, ItemStack itemStack, int amount) {
+    Optional<IndexedTradeSign> tradeSign = TradeSignIndex.getInstance().get(sign.getBlock());
+    if (tradeSign.isEmpty()) {
+      return;
+    }
     NamespacedKey toUpdate;
     if (Coin.isCoin(itemStack)) {
       toUpdate = PRICE;
-    } else if (getSignItem(sign).isSimilar(itemStack)) {
+      amount *= Coin.getValue(itemStack);
+    } else if (getModel(sign.getBlock()).filter(model -> model.isSimilarItem(itemStack))
+        .isPresent()) {
       toUpdate = PIECES;
     } else {
       return;
     }
-    addToIntegerNamespace(sign, toUpdate, amount);
-    updateSign(sign);
+    addToIntegerNamespace(tradeSign.get(), toUpdate, amount);
   }
 
   static @Nullable ItemStack getTradingBlockItem(Block block) {
-    Optional<Block> tempBlock = getTradingSign(block);
-    if (tempBlock.isEmpty()) {
+    return getModel(block).map(TradeSignModel::item).orElse(null);
+  }
+
+  /**
+   * Returns the decoded {@link TradeSignModel} of the trade sign belonging to the given block. The
+   * sign is only decoded on the first access, afterwards the cached model is returned.
+   *
+   * @param block either the trade sign or its trading block
+   * @return a filled {@link Optional}, if the block belongs to a valid trade sign
+   */
+  static Optional<TradeSignModel> getModel(Block block) {
+    Optional<IndexedTradeSign> tradeSign = TradeSignIndex.getInstance().get(block);
+    if (tradeSign.isEmpty()) {
+      return Optional.empty();
+    }
+    TradeSignModel model = TradeSignIndex.getInstance().getModel(tradeSign.get());
+    if (model != null) {
+      return Optional.of(model);
+    }
+    if (!(tradeSign.get().getSignBlock(block.getWorld()).getState() instanceof Sign sign)) {
+      return Optional.empty();
+    }
+    Optional<TradeSignModel> decodedModel = decodeModel(sign);
+    decodedModel.ifPresent(
+        decoded -> TradeSignIndex.getInstance().putModel(tradeSign.get(), decoded));
+    return decodedModel;
+  }
+
+  private static Optional<TradeSignModel> decodeModel(Sign sign) {
+    PersistentDataContainer dataContainer = sign.getPersistentDataContainer();
+    ItemStack item = readSignItem(sign);
+    String owner = dataContainer.get(OWNER, PersistentDataType.STRING);
+    if (item == null || owner == null) {
+      return Optional.empty();
+    }
+    Double demand = dataContainer.get(DEMAND, PersistentDataType.DOUBLE);
+    Long demandTick = dataContainer.get(DEMAND_TICK, PersistentDataType.LONG);
+    PricingState pricing =
+        demand == null || demandTick == null ? null : new PricingState(demand, demandTick);
+    return Optional.of(new TradeSignModel(item, ItemUtility.getFingerprint(item),
+        dataContainer.get(PRICE, PersistentDataType.INTEGER),
+            dataContainer.get(PIECES, PersistentDataType.INTEGER),
+            dataContainer.get(AMOUNT, PersistentDataType.INTEGER), UUID.fromString(owner),
+        pricing));
+  }
+
+  /**
+   * Reads the item sold by the given sign. Signs still storing the item in the legacy base64
+   * format are rewritten to the binary format on the way.
+   *
+   * @param sign a trading {@link Sign}
+   * @return the sold {@link ItemStack}, null if the item could not be read
+   */
+  private static @Nullable ItemStack readSignItem(Sign sign) {
+    PersistentDataContainer dataContainer = sign.getPersistentDataContainer();
+    if (dataContainer.has(MATERIAL, PersistentDataType.BYTE_ARRAY)) {
+      return ItemConverter.convertToItem(
+          dataContainer.get(MATERIAL, PersistentDataType.BYTE_ARRAY));
+    }
+    String legacyItem = dataContainer.get(MATERIAL, PersistentDataType.STRING);
+    if (legacyItem == null) {
       return null;
     }
-    return getSignItem((Sign) tempBlock.get().getState());
+    ItemStack item = ItemConverter.convertToItem(legacyItem);
+    if (item != null) {
+      ItemConverter.convertToBytes(item).ifPresent(bytes -> {
+        dataContainer.set(MATERIAL, PersistentDataType.BYTE_ARRAY, bytes);
+        sign.update();
+      });
+    }
+    return item;
+  }
+
+  /**
+   * Adds the given amount to one integer value of the sign. The change is only applied to the
+   * cached model, the sign itself is written once per tick by {@link DirtyTradeSigns}.
+   *
+   * @param tradeSign     the indexed trade sign
+   * @param namespacedKey the key of the value, either {@link #AMOUNT}, {@link #PRICE} or
+   *                      {@link #PIECES}
+   * @param amount        the amount to add, might be negative
+   */
+  private static void addToIntegerNamespace(IndexedTradeSign tradeSign,
+      NamespacedKey namespacedKey, int amount) {
+    updateModel(tradeSign, model -> {
+      if (namespacedKey.equals(AMOUNT)) {
+        // Min number stored is zero
+        return model.withAmount(Math.max(0, model.amount() + amount));
+      } else if (namespacedKey.equals(PRICE)) {
+        return model.withPrice(Math.max(0, model.price() + amount));
+      } else if (namespacedKey.equals(PIECES)) {
+        return model.withPieces(Math.max(0, model.pieces() + amount));
+      }
+      return model;
+    });
   }
 
-  private static @Nullable ItemStack getSignItem(Sign sign) {
-    return ItemConverter.convertToItem(
-        sign.getPersistentDataContainer().get(MATERIAL, PersistentDataType.STRING));
+  private static void updateModel(IndexedTradeSign tradeSign,
+      UnaryOperator<TradeSignModel> update) {
+    TradeSignModel model = TradeSignIndex.getInstance().getModel(tradeSign);
+    if (model == null) {
+      return;
+    }
+    TradeSignIndex.getInstance().putModel(tradeSign, update.apply(model));
+    DirtyTradeSigns.getInstance().markDirty(tradeSign);
   }
 
-  private static void addToIntegerNamespace(Sign sign, NamespacedKey namespacedKey, int amount) {
-    int tempNewValue =
-        sign.getPersistentDataContainer().get(namespacedKey, PersistentDataType.INTEGER) + amount;
-    // Min number stored is zero
-    tempNewValue = Math.max(0, tempNewValue);
-    sign.getPersistentDataContainer().set(namespacedKey, PersistentDataType.INTEGER, tempNewValue);
-    sign.update();
+  /**
+   * Switches the given trading sign between a static and a dynamic price, see
+   * {@link PricingEngine}.
+   *
+   * @param block  the trading sign
+   * @param player {@link OfflinePlayer} requesting the change, has to own the sign
+   * @return true if the sign uses dynamic pricing now, empty if the player can't change the sign
+   */
+  public static Optional<Boolean> toggleDynamicPricing(Block block, OfflinePlayer player) {
+    Optional<IndexedTradeSign> tradeSign = TradeSignIndex.getInstance().get(block);
+    if (tradeSign.isEmpty() || !tradeSign.get().owner().equals(player.getUniqueId())) {
+      return Optional.empty();
+    }
+    Optional<TradeSignModel> model = getModel(block);
+    if (model.isEmpty()) {
+      return Optional.empty();
+    }
+    boolean dynamic = model.get().pricing() == null;
+    updateModel(tradeSign.get(), current -> current.withPricing(
+        dynamic ? PricingEngine.getInstance().initialState() : null));
+    return Optional.of(dynamic);
   }
 
   private static Optional<Inventory> getInventoryRelatedToSign(Sign sign) {
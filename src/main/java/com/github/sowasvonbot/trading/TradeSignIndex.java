@@ -0,0 +1,337 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.coin.storage.CoinSign;
+import com.github.sowasvonbot.util.BlockUtility;
+import com.github.sowasvonbot.util.ChunkManifest;
+import com.github.sowasvonbot.util.ProtectedBlockRegistry;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import org.bukkit.Chunk;
+import org.bukkit.Server;
+import org.bukkit.World;
+import org.bukkit.block.Block;
+import org.bukkit.block.BlockState;
+import org.bukkit.block.Sign;
+import org.bukkit.block.data.type.WallSign;
+
+/**
+ * In-memory index of all loaded trade signs and their supporting blocks. Entries are keyed by
+ * world and packed block coordinates, so lookups never touch a tile entity.
+ */
+public class TradeSignIndex {
+
+  private static TradeSignIndex instance;
+
+  private final Map<UUID, WorldIndex> worlds = new HashMap<>();
+
+  private TradeSignIndex() {
+  }
+
+  /**
+   * Singleton for the trade sign index.
+   *
+   * @return {@link TradeSignIndex} containing all loaded trade signs
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static TradeSignIndex getInstance() {
+    if (instance == null) {
+      instance = new TradeSignIndex();
+    }
+    return instance;
+  }
+
+  /**
+   * Returns the trade sign belonging to the given block. The block might either be the sign itself
+   * or the trading block supporting it.
+   *
+   * @param block an arbitrary {@link Block}
+   * @return a filled {@link Optional}, if the block belongs to a trade sign
+   */
+  public Optional<IndexedTradeSign> get(Block block) {
+    return get(block.getWorld(), block.getX(), block.getY(), block.getZ());
+  }
+
+  /**
+   * Returns the trade sign belonging to the given coordinates.
+   *
+   * @param world {@link World} of the coordinates
+   * @param x     block x coordinate
+   * @param y     block y coordinate
+   * @param z     block z coordinate
+   * @return a filled {@link Optional}, if the coordinates belong to a trade sign
+   */
+  public Optional<IndexedTradeSign> get(World world, int x, int y, int z) {
+    indexPendingChunks(world, x, z);
+    WorldIndex worldIndex = worlds.get(world.getUID());
+    if (worldIndex == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(
+        worldIndex.positions.get(BlockUtility.packPosition(x, y, z)));
+  }
+
+  /**
+   * Cheap negative lookup for hot paths. Returns false, if no trade sign or trading block is
+   * located inside the given chunk.
+   *
+   * @param world  {@link World} of the chunk
+   * @param chunkX chunk x coordinate
+   * @param chunkZ chunk z coordinate
+   * @return true, if the chunk might contain a trading block
+   */
+  public boolean mayContainShop(World world, int chunkX, int chunkZ) {
+    if (ManifestBackfill.getInstance().hasPending()) {
+      indexPendingChunk(world, chunkX, chunkZ);
+      indexPendingChunk(world, chunkX - 1, chunkZ);
+      indexPendingChunk(world, chunkX + 1, chunkZ);
+      indexPendingChunk(world, chunkX, chunkZ - 1);
+      indexPendingChunk(world, chunkX, chunkZ + 1);
+    }
+    WorldIndex worldIndex = worlds.get(world.getUID());
+    return worldIndex != null && worldIndex.shopChunks.containsKey(
+        BlockUtility.packChunk(chunkX, chunkZ));
+  }
+
+  /**
+   * Scans chunks still queued by the {@link ManifestBackfill}, before a lookup answers. The sign of
+   * a trading block at a chunk border might be placed in the neighbouring chunk.
+   */
+  private void indexPendingChunks(World world, int x, int z) {
+    if (!ManifestBackfill.getInstance().hasPending()) {
+      return;
+    }
+    int chunkX = x >> 4;
+    int chunkZ = z >> 4;
+    indexPendingChunk(world, chunkX, chunkZ);
+    if ((x & 15) == 0) {
+      indexPendingChunk(world, chunkX - 1, chunkZ);
+    } else if ((x & 15) == 15) {
+      indexPendingChunk(world, chunkX + 1, chunkZ);
+    }
+    if ((z & 15) == 0) {
+      indexPendingChunk(world, chunkX, chunkZ - 1);
+    } else if ((z & 15) == 15) {
+      indexPendingChunk(world, chunkX, chunkZ + 1);
+    }
+  }
+
+  private void indexPendingChunk(World world, int chunkX, int chunkZ) {
+    if (ManifestBackfill.getInstance().isPending(world, chunkX, chunkZ)
+        && world.isChunkLoaded(chunkX, chunkZ)) {
+      indexChunk(world.getChunkAt(chunkX, chunkZ));
+    }
+  }
+
+  /**
+   * Returns the cached {@link TradeSignModel} of the given trade sign.
+   *
+   * @param tradeSign an indexed trade sign
+   * @return the cached model, null if the sign was not decoded yet
+   */
+  @Nullable TradeSignModel getModel(IndexedTradeSign tradeSign) {
+    WorldIndex worldIndex = worlds.get(tradeSign.worldId());
+    if (worldIndex == null) {
+      return null;
+    }
+    return worldIndex.models.get(tradeSign.signPosition());
+  }
+
+  void putModel(IndexedTradeSign tradeSign, TradeSignModel model) {
+    WorldIndex worldIndex = worlds.get(tradeSign.worldId());
+    if (worldIndex == null || worldIndex.positions.get(tradeSign.signPosition()) != tradeSign) {
+      return;
+    }
+    worldIndex.models.put(tradeSign.signPosition(), model);
+    ShopFinder.getInstance().update(tradeSign, model);
+  }
+
+  IndexedTradeSign add(Sign sign, Block tradingBlock, UUID owner) {
+    IndexedTradeSign tradeSign =
+        new IndexedTradeSign(sign.getWorld().getUID(), BlockUtility.packPosition(sign.getBlock()),
+            BlockUtility.packPosition(tradingBlock), owner);
+    add(tradeSign);
+    return tradeSign;
+  }
+
+  private void add(IndexedTradeSign tradeSign) {
+    WorldIndex worldIndex = worlds.computeIfAbsent(tradeSign.worldId(), id -> new WorldIndex());
+    remove(worldIndex, worldIndex.positions.get(tradeSign.signPosition()));
+    worldIndex.positions.put(tradeSign.signPosition(), tradeSign);
+    worldIndex.positions.put(tradeSign.blockPosition(), tradeSign);
+    worldIndex.countShopChunks(tradeSign, 1);
+    protect(tradeSign, true);
+    worldIndex.chunks.computeIfAbsent(BlockUtility.chunkOfPosition(tradeSign.signPosition()),
+        chunk -> new ArrayList<>()).add(tradeSign);
+  }
+
+  /**
+   * Removes the trade sign belonging to the given block from the index.
+   *
+   * @param block either the trade sign or its trading block
+   */
+  void remove(Block block) {
+    WorldIndex worldIndex = worlds.get(block.getWorld().getUID());
+    if (worldIndex == null) {
+      return;
+    }
+    IndexedTradeSign tradeSign = worldIndex.positions.get(BlockUtility.packPosition(block));
+    if (tradeSign != null) {
+      ShopFinder.getInstance().remove(tradeSign);
+    }
+    remove(worldIndex, tradeSign);
+  }
+
+  private static void remove(WorldIndex worldIndex, IndexedTradeSign tradeSign) {
+    if (tradeSign == null) {
+      return;
+    }
+    worldIndex.positions.remove(tradeSign.signPosition(), tradeSign);
+    worldIndex.positions.remove(tradeSign.blockPosition(), tradeSign);
+    worldIndex.models.remove(tradeSign.signPosition());
+    worldIndex.countShopChunks(tradeSign, -1);
+    protect(tradeSign, false);
+    long chunkKey = BlockUtility.chunkOfPosition(tradeSign.signPosition());
+    List<IndexedTradeSign> chunkSigns = worldIndex.chunks.get(chunkKey);
+    if (chunkSigns != null) {
+      chunkSigns.remove(tradeSign);
+      if (chunkSigns.isEmpty()) {
+        worldIndex.chunks.remove(chunkKey);
+      }
+    }
+  }
+
+  /**
+   * Adds all trade signs inside the given chunk to the index. The signs are read from the
+   * {@link ChunkManifest} of the chunk, chunks without manifest are scanned once.
+   *
+   * @param chunk a loaded {@link Chunk}
+   */
+  void indexChunk(Chunk chunk) {
+    ManifestBackfill.getInstance().remove(chunk);
+    if (!ChunkManifest.isComplete(chunk)) {
+      scanChunk(chunk);
+    }
+    List<ChunkManifest.Entry> entries =
+        ChunkManifest.read(chunk, ChunkManifest.Kind.TRADE_SIGN).orElseGet(List::of);
+    List<ChunkManifest.Entry> valid = new ArrayList<>(entries.size());
+    World world = chunk.getWorld();
+    for (ChunkManifest.Entry entry : entries) {
+      IndexedTradeSign tradeSign = new IndexedTradeSign(world.getUID(), entry.signPosition(),
+          entry.blockPosition(), entry.owner());
+      Block signBlock = tradeSign.getSignBlock(world);
+      if (!(signBlock.getBlockData() instanceof WallSign)) {
+        // the sign was removed without the plugin noticing, e.g. by a world editor
+        ShopFinder.getInstance().remove(tradeSign);
+        continue;
+      }
+      valid.add(entry);
+      add(tradeSign);
+      if (!ShopFinder.getInstance().contains(tradeSign)) {
+        // decoding the model makes the shop searchable
+        TradeSign.getModel(signBlock);
+      }
+    }
+    if (valid.size() != entries.size()) {
+      ChunkManifest.write(chunk, ChunkManifest.Kind.TRADE_SIGN, valid);
+    }
+  }
+
+  /**
+   * Writes the manifest of a chunk by scanning its block entities for trade and coin signs.
+   *
+   * @param chunk a loaded {@link Chunk} without manifest
+   */
+  private static void scanChunk(Chunk chunk) {
+    List<ChunkManifest.Entry> tradeSigns = new ArrayList<>();
+    List<ChunkManifest.Entry> coinSigns = new ArrayList<>();
+    for (BlockState state : chunk.getTileEntities()) {
+      if (!(state instanceof Sign sign)) {
+        continue;
+      }
+      TradeSign.toIndexEntry(sign).ifPresent(tradeSign -> tradeSigns.add(
+          new ChunkManifest.Entry(tradeSign.signPosition(), tradeSign.blockPosition(),
+              tradeSign.owner())));
+      CoinSign.toManifestEntry(sign).ifPresent(coinSigns::add);
+    }
+    ChunkManifest.write(chunk, ChunkManifest.Kind.TRADE_SIGN, tradeSigns);
+    ChunkManifest.write(chunk, ChunkManifest.Kind.COIN_SIGN, coinSigns);
+  }
+
+  /**
+   * Removes all trade signs inside the given chunk from the index.
+   *
+   * @param chunk a {@link Chunk}, which gets unloaded
+   */
+  void dropChunk(Chunk chunk) {
+    ManifestBackfill.getInstance().remove(chunk);
+    WorldIndex worldIndex = worlds.get(chunk.getWorld().getUID());
+    if (worldIndex == null) {
+      return;
+    }
+    List<IndexedTradeSign> chunkSigns =
+        worldIndex.chunks.remove(BlockUtility.packChunk(chunk.getX(), chunk.getZ()));
+    if (chunkSigns == null) {
+      return;
+    }
+    for (IndexedTradeSign tradeSign : chunkSigns) {
+      worldIndex.positions.remove(tradeSign.signPosition(), tradeSign);
+      worldIndex.positions.remove(tradeSign.blockPosition(), tradeSign);
+      worldIndex.models.remove(tradeSign.signPosition());
+      worldIndex.countShopChunks(tradeSign, -1);
+      protect(tradeSign, false);
+    }
+  }
+
+  private static void protect(IndexedTradeSign tradeSign, boolean protect) {
+    ProtectedBlockRegistry registry = ProtectedBlockRegistry.getInstance();
+    if (protect) {
+      registry.protect(tradeSign.worldId(), tradeSign.signPosition());
+      registry.protect(tradeSign.worldId(), tradeSign.blockPosition());
+    } else {
+      registry.release(tradeSign.worldId(), tradeSign.signPosition());
+      registry.release(tradeSign.worldId(), tradeSign.blockPosition());
+    }
+  }
+
+  /**
+   * Indexes every chunk, which is already loaded, e.g. after a plugin reload. Chunks without
+   * manifest are scanned over the next ticks, or earlier when a lookup needs them.
+   *
+   * @param server the running {@link Server}
+   */
+  public void indexLoadedChunks(Server server) {
+    for (World world : server.getWorlds()) {
+      for (Chunk chunk : world.getLoadedChunks()) {
+        if (ChunkManifest.isComplete(chunk)) {
+          indexChunk(chunk);
+        } else {
+          ManifestBackfill.getInstance().enqueue(chunk);
+        }
+      }
+    }
+  }
+
+  private static class WorldIndex {
+    private final Map<Long, IndexedTradeSign> positions = new HashMap<>();
+    private final Map<Long, List<IndexedTradeSign>> chunks = new HashMap<>();
+    private final Map<Long, TradeSignModel> models = new HashMap<>();
+    // number of signs and trading blocks per chunk, chunks without shops are not present
+    private final Map<Long, Integer> shopChunks = new HashMap<>();
+
+    private void countShopChunks(IndexedTradeSign tradeSign, int delta) {
+      countShopChunk(BlockUtility.chunkOfPosition(tradeSign.signPosition()), delta);
+      countShopChunk(BlockUtility.chunkOfPosition(tradeSign.blockPosition()), delta);
+    }
+
+    private void countShopChunk(long chunkKey, int delta) {
+      shopChunks.merge(chunkKey, delta,
+          (count, change) -> count + change == 0 ? null : count + change);
+    }
+  }
+}
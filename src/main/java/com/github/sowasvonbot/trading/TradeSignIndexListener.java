@@ -0,0 +1,36 @@
+package com.github.sowasvonbot.trading;
+
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.Listener;
+import org.bukkit.event.world.ChunkLoadEvent;
+import org.bukkit.event.world.ChunkUnloadEvent;
+import org.bukkit.event.world.WorldSaveEvent;
+
+/**
+ * Keeps the {@link TradeSignIndex} in sync with the loaded chunks and writes changed trade signs
+ * and the {@link PricingClock} before their chunk or world is saved.
+ */
+public class TradeSignIndexListener implements Listener {
+
+  @EventHandler
+  public void indexChunk(ChunkLoadEvent event) {
+    TradeSignIndex.getInstance().indexChunk(event.getChunk());
+  }
+
+  /**
+   * Writes all changed signs inside the chunk and removes them from the index afterwards.
+   *
+   * @param event {@link ChunkUnloadEvent}, called before the chunk is saved
+   */
+  @EventHandler
+  public void dropChunk(ChunkUnloadEvent event) {
+    DirtyTradeSigns.getInstance().flushChunk(event.getChunk());
+    TradeSignIndex.getInstance().dropChunk(event.getChunk());
+  }
+
+  @EventHandler
+  public void flushWorld(WorldSaveEvent event) {
+    DirtyTradeSigns.getInstance().flushWorld(event.getWorld());
+    PricingClock.getInstance().save(event.getWorld());
+  }
+}
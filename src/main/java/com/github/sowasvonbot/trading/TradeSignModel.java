@@ -0,0 +1,71 @@
+package com.github.sowasvonbot.trading;
+
+import com.github.sowasvonbot.util.ItemUtility;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Immutable, decoded view on the persistent data of one trade sign. Used on the trade path, so the
+ * item stored in the sign does not have to be deserialized on every click.
+ *
+ * @param item        {@link ItemStack} sold by the sign, only handed out as a copy
+ * @param fingerprint long, fingerprint of the item, see {@link ItemUtility#getFingerprint}
+ * @param price       int, coins needed for one trade
+ * @param pieces      int, pieces received per trade
+ * @param amount      int, pieces in stock
+ * @param owner       {@link UUID} of the owner of the sign
+ * @param pricing     {@link PricingState} of the demand, null if the sign uses a static price
+ */
+public record TradeSignModel(ItemStack item, long fingerprint, int price, int pieces, int amount,
+                             UUID owner, @Nullable PricingState pricing) {
+
+  public TradeSignModel {
+    item = item.clone();
+  }
+
+  @Override
+  public ItemStack item() {
+    return item.clone();
+  }
+
+  /**
+   * Checks if the given {@link ItemStack} is similar to the item sold by the sign, without copying
+   * the stored item.
+   *
+   * @param itemStack {@link ItemStack} to check
+   * @return true, if the items are similar
+   */
+  public boolean isSimilarItem(ItemStack itemStack) {
+    return item.isSimilar(itemStack);
+  }
+
+  TradeSignModel withPrice(int price) {
+    return new TradeSignModel(item, fingerprint, price, pieces, amount, owner, pricing);
+  }
+
+  TradeSignModel withPieces(int pieces) {
+    return new TradeSignModel(item, fingerprint, price, pieces, amount, owner, pricing);
+  }
+
+  TradeSignModel withAmount(int amount) {
+    return new TradeSignModel(item, fingerprint, price, pieces, amount, owner, pricing);
+  }
+
+  TradeSignModel withPricing(@Nullable PricingState pricing) {
+    return new TradeSignModel(item, fingerprint, price, pieces, amount, owner, pricing);
+  }
+
+  /**
+   * Returns the price of one trade, which differs from the base price for dynamic pricing.
+   *
+   * @return int, coins needed for one trade
+   */
+  public int effectivePrice() {
+    if (pricing == null) {
+      return price;
+    }
+    return PricingEngine.getInstance()
+        .getPrice(price, pricing, pieces == 0 ? 0 : amount / pieces);
+  }
+}
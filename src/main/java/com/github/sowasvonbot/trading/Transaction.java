@@ -1,34 +1,39 @@
 package com.github.sowasvonbot.trading;
 
-import java.util.LinkedList;
-import java.util.List;
-
 /**
- * Represent an item transaction in a trading block.
+ * Represent the settlement of all item transactions possible in a trading block.
  *
- * @param price  int, needed for one transaction
- * @param amount int, received pieces
+ * @param lots   int, number of transactions made
+ * @param price  int, coins needed for all transactions
+ * @param amount int, received pieces of all transactions
  */
-public record Transaction(int price, int amount) {
+public record Transaction(int lots, int price, int amount) {
+
+  private static final Transaction NONE = new Transaction(0, 0, 0);
 
   /**
-   * Returns a list of possible transactions.
+   * Returns the settlement of the maximum possible transactions in closed form.
    *
    * @param maxStored      int, maximum available
    * @param price          int, price for one transaction
    * @param piecesPerPrice int, pieces received per transaction
    * @param money          int, available money
-   * @return {@link List} of {@link Transaction}s available
+   * @return {@link Transaction} containing all possible transactions, might contain zero lots
    */
-  public static List<Transaction> getMaximumPossibleTransactions(int maxStored, int price,
+  public static Transaction getMaximumPossibleTransactions(int maxStored, int price,
       int piecesPerPrice, int money) {
-    List<Transaction> transactions = new LinkedList<>();
-
-    while (maxStored >= piecesPerPrice && money >= price && maxStored > 0 && price > 0) {
-      maxStored -= piecesPerPrice;
-      money -= price;
-      transactions.add(new Transaction(price, piecesPerPrice));
+    if (maxStored <= 0 || price <= 0 || money < price || maxStored < piecesPerPrice) {
+      return NONE;
     }
-    return transactions;
+    int lots = money / price;
+    // A sign selling zero pieces is only limited by the money
+    if (piecesPerPrice > 0) {
+      lots = Math.min(lots, maxStored / piecesPerPrice);
+    }
+    return new Transaction(lots, lots * price, lots * piecesPerPrice);
+  }
+
+  public boolean isEmpty() {
+    return lots == 0;
   }
 }
@@ -0,0 +1,156 @@
+package com.github.sowasvonbot.trading.ledger;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * One memory-mapped segment file of the {@link TradeLedger}. A segment starts with a header
+ * containing the number of written records, followed by fixed size {@link TradeRecord}s.
+ */
+class LedgerSegment implements AutoCloseable {
+
+  static final int RECORDS_PER_SEGMENT = 65536;
+
+  private static final int MAGIC = 0x52435443;
+  private static final int VERSION = 1;
+  private static final int HEADER_SIZE = 4 * Integer.BYTES;
+  private static final int COUNT_OFFSET = 2 * Integer.BYTES;
+  private static final String PREFIX = "trades-";
+  private static final String SUFFIX = ".seg";
+
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final int number;
+  private int count;
+
+  private LedgerSegment(FileChannel channel, MappedByteBuffer buffer, int number) {
+    this.channel = channel;
+    this.buffer = buffer;
+    this.number = number;
+    this.count = buffer.capacity() < HEADER_SIZE ? 0 : Math.min(buffer.getInt(COUNT_OFFSET),
+        (buffer.capacity() - HEADER_SIZE) / TradeRecord.SIZE);
+  }
+
+  /**
+   * Opens the given segment for appending, creates it if necessary.
+   *
+   * @param directory ledger directory
+   * @param number    number of the segment
+   * @return {@link LedgerSegment} mapped read-write
+   * @throws IOException if the file can not be mapped
+   */
+  static LedgerSegment openForWriting(Path directory, int number) throws IOException {
+    FileChannel channel = FileChannel.open(path(directory, number), StandardOpenOption.CREATE,
+        StandardOpenOption.READ, StandardOpenOption.WRITE);
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0,
+        HEADER_SIZE + (long) RECORDS_PER_SEGMENT * TradeRecord.SIZE);
+    if (buffer.getInt(0) != MAGIC) {
+      buffer.putInt(0, MAGIC);
+      buffer.putInt(Integer.BYTES, VERSION);
+      buffer.putInt(COUNT_OFFSET, 0);
+      buffer.putInt(3 * Integer.BYTES, RECORDS_PER_SEGMENT);
+    }
+    return new LedgerSegment(channel, buffer, number);
+  }
+
+  private static LedgerSegment openForReading(Path file) throws IOException {
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    return new LedgerSegment(channel, buffer, parseNumber(file));
+  }
+
+  /**
+   * Returns the numbers of all segments inside the directory in ascending order.
+   *
+   * @param directory ledger directory
+   * @return {@link List} of segment numbers
+   * @throws IOException if the directory can not be listed
+   */
+  static List<Integer> listSegments(Path directory) throws IOException {
+    if (!Files.isDirectory(directory)) {
+      return List.of();
+    }
+    try (Stream<Path> files = Files.list(directory)) {
+      return files.map(LedgerSegment::parseNumber).filter(number -> number >= 0)
+          .sorted(Comparator.naturalOrder()).toList();
+    }
+  }
+
+  /**
+   * Scans all segments from the newest to the oldest record. Only one segment is mapped at a time
+   * and records are decoded one by one, so the ledger is never loaded into the heap.
+   *
+   * @param directory ledger directory
+   * @param filter    {@link Predicate} records have to match
+   * @param limit     maximum number of records returned
+   * @return matching records, newest first
+   * @throws IOException if a segment can not be read
+   */
+  static List<TradeRecord> scan(Path directory, Predicate<TradeRecord> filter, int limit)
+      throws IOException {
+    List<TradeRecord> result = new ArrayList<>();
+    List<Integer> segments = listSegments(directory);
+    for (int i = segments.size() - 1; i >= 0 && result.size() < limit; i--) {
+      try (LedgerSegment segment = openForReading(path(directory, segments.get(i)))) {
+        for (int index = segment.count - 1; index >= 0 && result.size() < limit; index--) {
+          TradeRecord tradeRecord =
+              TradeRecord.read(segment.buffer, HEADER_SIZE + index * TradeRecord.SIZE);
+          if (filter.test(tradeRecord)) {
+            result.add(tradeRecord);
+          }
+        }
+      }
+    }
+    return result;
+  }
+
+  boolean isFull() {
+    return count >= RECORDS_PER_SEGMENT;
+  }
+
+  int getNumber() {
+    return number;
+  }
+
+  void append(TradeRecord tradeRecord) {
+    buffer.position(HEADER_SIZE + count * TradeRecord.SIZE);
+    tradeRecord.write(buffer);
+    count++;
+    // the count is written last, so readers never see a partially written record
+    buffer.putInt(COUNT_OFFSET, count);
+  }
+
+  void force() {
+    buffer.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private static Path path(Path directory, int number) {
+    return directory.resolve(String.format("%s%06d%s", PREFIX, number, SUFFIX));
+  }
+
+  private static int parseNumber(Path file) {
+    String name = file.getFileName().toString();
+    if (!name.startsWith(PREFIX) || !name.endsWith(SUFFIX)) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+}
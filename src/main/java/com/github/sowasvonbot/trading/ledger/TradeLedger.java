@@ -0,0 +1,162 @@
+package com.github.sowasvonbot.trading.ledger;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+
+/**
+ * Append-only audit trail of all trades. Trades are queued lock-free on the main thread and
+ * written by a single background thread into memory-mapped, rotating segment files.
+ */
+public class TradeLedger {
+
+  private static final long DRAIN_INTERVAL_MILLIS = 1000;
+  private static TradeLedger instance;
+
+  private final Queue<TradeRecord> queue = new ConcurrentLinkedQueue<>();
+  private @Nullable ScheduledExecutorService writer;
+  private @Nullable Path directory;
+  private @Nullable LedgerSegment segment;
+
+  private TradeLedger() {
+  }
+
+  /**
+   * Singleton for the trade ledger.
+   *
+   * @return {@link TradeLedger} to record trades in
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static TradeLedger getInstance() {
+    if (instance == null) {
+      instance = new TradeLedger();
+    }
+    return instance;
+  }
+
+  /**
+   * Opens the ledger inside the given directory and starts the writer thread.
+   *
+   * @param directory directory containing the segment files
+   */
+  public void open(Path directory) {
+    this.directory = directory;
+    writer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "RealCoins-TradeLedger");
+      thread.setDaemon(true);
+      return thread;
+    });
+    writer.scheduleWithFixedDelay(this::drain, DRAIN_INTERVAL_MILLIS, DRAIN_INTERVAL_MILLIS,
+        TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * Queues a trade for writing. Safe to call from any thread, never blocks.
+   *
+   * @param tradeRecord the completed trade
+   */
+  public void record(TradeRecord tradeRecord) {
+    queue.offer(tradeRecord);
+  }
+
+  /**
+   * Scans the ledger from the newest to the oldest trade on the writer thread.
+   *
+   * @param filter {@link Predicate} the trades have to match
+   * @param limit  maximum number of trades returned
+   * @return {@link CompletableFuture} completed with the matching trades, newest first
+   */
+  public CompletableFuture<List<TradeRecord>> scan(Predicate<TradeRecord> filter, int limit) {
+    if (writer == null || directory == null) {
+      return CompletableFuture.completedFuture(List.of());
+    }
+    Path ledgerDirectory = directory;
+    return CompletableFuture.supplyAsync(() -> {
+      drain();
+      try {
+        return LedgerSegment.scan(ledgerDirectory, filter, limit);
+      } catch (IOException e) {
+        throw new IllegalStateException(e);
+      }
+    }, writer);
+  }
+
+  /**
+   * Writes all queued trades and stops the writer thread.
+   */
+  public void close() {
+    if (writer == null) {
+      return;
+    }
+    writer.shutdown();
+    try {
+      if (!writer.awaitTermination(5, TimeUnit.SECONDS)) {
+        RealCoinsPlugin.getPluginLogger().warning("Trade ledger writer did not stop in time");
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    drain();
+    closeSegment();
+    writer = null;
+  }
+
+  private synchronized void drain() {
+    if (queue.isEmpty() || directory == null) {
+      return;
+    }
+    try {
+      TradeRecord tradeRecord;
+      while ((tradeRecord = queue.poll()) != null) {
+        currentSegment().append(tradeRecord);
+      }
+      if (segment != null) {
+        segment.force();
+      }
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.SEVERE, e, () -> "Could not write to the trade ledger");
+    }
+  }
+
+  private LedgerSegment currentSegment() throws IOException {
+    if (segment == null) {
+      Files.createDirectories(directory);
+      List<Integer> segments = LedgerSegment.listSegments(directory);
+      segment = LedgerSegment.openForWriting(directory,
+          segments.isEmpty() ? 0 : segments.get(segments.size() - 1));
+    }
+    if (segment.isFull()) {
+      int next = segment.getNumber() + 1;
+      closeSegment();
+      segment = LedgerSegment.openForWriting(directory, next);
+    }
+    return segment;
+  }
+
+  private void closeSegment() {
+    if (segment == null) {
+      return;
+    }
+    try {
+      segment.force();
+      segment.close();
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> "Could not close trade ledger segment");
+    }
+    segment = null;
+  }
+}
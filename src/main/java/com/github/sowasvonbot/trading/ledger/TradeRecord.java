@@ -0,0 +1,51 @@
+package com.github.sowasvonbot.trading.ledger;
+
+import java.nio.ByteBuffer;
+import java.util.UUID;
+
+/**
+ * One completed trade in the {@link TradeLedger}. Records are stored with a fixed size of
+ * {@link #SIZE} bytes.
+ *
+ * @param timestamp       long, epoch millis of the trade
+ * @param worldId         {@link UUID} of the world of the shop
+ * @param position        packed position of the trading block
+ * @param buyer           {@link UUID} of the buyer
+ * @param seller          {@link UUID} of the shop owner
+ * @param itemFingerprint long, fingerprint of the sold item
+ * @param lots            int, number of lots bought
+ * @param coins           int, coins paid
+ * @param stock           int, stock of the shop after the trade
+ */
+public record TradeRecord(long timestamp, UUID worldId, long position, UUID buyer, UUID seller,
+                          long itemFingerprint, int lots, int coins, int stock) {
+
+  public static final int SIZE = 9 * Long.BYTES + 4 * Integer.BYTES;
+
+  void write(ByteBuffer buffer) {
+    buffer.putLong(timestamp);
+    buffer.putLong(worldId.getMostSignificantBits());
+    buffer.putLong(worldId.getLeastSignificantBits());
+    buffer.putLong(position);
+    buffer.putLong(buyer.getMostSignificantBits());
+    buffer.putLong(buyer.getLeastSignificantBits());
+    buffer.putLong(seller.getMostSignificantBits());
+    buffer.putLong(seller.getLeastSignificantBits());
+    buffer.putLong(itemFingerprint);
+    buffer.putInt(lots);
+    buffer.putInt(coins);
+    buffer.putInt(stock);
+    // reserved
+    buffer.putInt(0);
+  }
+
+  static TradeRecord read(ByteBuffer buffer, int offset) {
+    return new TradeRecord(buffer.getLong(offset),
+        new UUID(buffer.getLong(offset + 8), buffer.getLong(offset + 16)),
+        buffer.getLong(offset + 24),
+        new UUID(buffer.getLong(offset + 32), buffer.getLong(offset + 40)),
+        new UUID(buffer.getLong(offset + 48), buffer.getLong(offset + 56)),
+        buffer.getLong(offset + 64), buffer.getInt(offset + 72), buffer.getInt(offset + 76),
+        buffer.getInt(offset + 80));
+  }
+}
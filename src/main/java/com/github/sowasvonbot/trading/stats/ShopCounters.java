@@ -0,0 +1,14 @@
+package com.github.sowasvonbot.trading.stats;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters of one shop. Updates never block, reads are only used for snapshots.
+ */
+class ShopCounters {
+
+  final LongAdder lotsSold = new LongAdder();
+  final LongAdder coinsEarned = new LongAdder();
+  final LongAdder restocks = new LongAdder();
+  volatile long lastSaleTick = -1;
+}
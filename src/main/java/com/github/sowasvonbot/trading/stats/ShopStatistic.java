@@ -0,0 +1,16 @@
+package com.github.sowasvonbot.trading.stats;
+
+import com.github.sowasvonbot.trading.IndexedTradeSign;
+
+/**
+ * Snapshot of the statistics of one shop.
+ *
+ * @param shop         {@link IndexedTradeSign} the statistics belong to
+ * @param lotsSold     long, lots sold over the lifetime of the shop
+ * @param coinsEarned  long, coins earned over the lifetime of the shop
+ * @param lastSaleTick long, full world time of the last sale, -1 if nothing was sold yet
+ * @param restocks     long, number of restocks by the owner
+ */
+public record ShopStatistic(IndexedTradeSign shop, long lotsSold, long coinsEarned,
+                            long lastSaleTick, long restocks) {
+}
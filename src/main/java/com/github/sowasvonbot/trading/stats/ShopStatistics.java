@@ -0,0 +1,184 @@
+package com.github.sowasvonbot.trading.stats;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.trading.IndexedTradeSign;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Predicate;
+import java.util.logging.Level;
+import javax.annotation.Nullable;
+
+/**
+ * Sales statistics of all shops. Counters are updated on every trade and restock, commands only
+ * read snapshots of them. The statistics are written to a small binary file periodically.
+ */
+public class ShopStatistics {
+
+  private static final int VERSION = 1;
+  private static final int RECORD_SIZE = 10 * Long.BYTES;
+  private static ShopStatistics instance;
+
+  private final Map<IndexedTradeSign, ShopCounters> counters = new ConcurrentHashMap<>();
+  private @Nullable Path file;
+
+  private ShopStatistics() {
+  }
+
+  /**
+   * Singleton for the shop statistics.
+   *
+   * @return {@link ShopStatistics} of all shops
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static ShopStatistics getInstance() {
+    if (instance == null) {
+      instance = new ShopStatistics();
+    }
+    return instance;
+  }
+
+  /**
+   * Starts tracking a new shop, so shops without any sale show up as well.
+   *
+   * @param shop the created shop
+   */
+  public void register(IndexedTradeSign shop) {
+    counters.computeIfAbsent(shop, key -> new ShopCounters());
+  }
+
+  /**
+   * Records a sale of the given shop.
+   *
+   * @param shop  the shop which sold something
+   * @param lots  int, lots sold
+   * @param coins int, coins earned
+   * @param tick  long, full world time of the sale
+   */
+  public void recordSale(IndexedTradeSign shop, int lots, int coins, long tick) {
+    ShopCounters shopCounters = counters.computeIfAbsent(shop, key -> new ShopCounters());
+    shopCounters.lotsSold.add(lots);
+    shopCounters.coinsEarned.add(coins);
+    shopCounters.lastSaleTick = tick;
+  }
+
+  /**
+   * Records a restock of the given shop.
+   *
+   * @param shop the restocked shop
+   */
+  public void recordRestock(IndexedTradeSign shop) {
+    counters.computeIfAbsent(shop, key -> new ShopCounters()).restocks.increment();
+  }
+
+  /**
+   * Stops tracking the given shop, e.g. after it was destroyed.
+   *
+   * @param shop the removed shop
+   */
+  public void remove(IndexedTradeSign shop) {
+    counters.remove(shop);
+  }
+
+  /**
+   * Creates a snapshot of all shops matching the filter, sorted by the earned coins.
+   *
+   * @param filter {@link Predicate} the shops have to match
+   * @return {@link List} of {@link ShopStatistic}, best shop first
+   */
+  public List<ShopStatistic> snapshot(Predicate<IndexedTradeSign> filter) {
+    List<ShopStatistic> statistics = new ArrayList<>();
+    counters.forEach((shop, shopCounters) -> {
+      if (filter.test(shop)) {
+        statistics.add(toStatistic(shop, shopCounters));
+      }
+    });
+    statistics.sort(Comparator.comparingLong(ShopStatistic::coinsEarned).reversed());
+    return statistics;
+  }
+
+  /**
+   * Loads the statistics from the given file, if it exists. Later calls of {@link #save()} write
+   * to this file.
+   *
+   * @param file {@link Path} of the statistics file
+   */
+  public void load(Path file) {
+    this.file = file;
+    if (!Files.exists(file)) {
+      return;
+    }
+    try {
+      ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+      if (buffer.remaining() < 2 * Integer.BYTES || buffer.getInt() != VERSION) {
+        RealCoinsPlugin.getPluginLogger().warning(() -> String.format("Ignoring %s", file));
+        return;
+      }
+      int count = buffer.getInt();
+      for (int i = 0; i < count && buffer.remaining() >= RECORD_SIZE; i++) {
+        final IndexedTradeSign shop =
+            new IndexedTradeSign(new UUID(buffer.getLong(), buffer.getLong()), buffer.getLong(),
+                buffer.getLong(), new UUID(buffer.getLong(), buffer.getLong()));
+        ShopCounters shopCounters = new ShopCounters();
+        shopCounters.lotsSold.add(buffer.getLong());
+        shopCounters.coinsEarned.add(buffer.getLong());
+        shopCounters.lastSaleTick = buffer.getLong();
+        shopCounters.restocks.add(buffer.getLong());
+        counters.put(shop, shopCounters);
+      }
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> "Could not read the shop statistics");
+    }
+  }
+
+  /**
+   * Writes a snapshot of all statistics. Safe to call from any thread.
+   */
+  public synchronized void save() {
+    if (file == null) {
+      return;
+    }
+    List<ShopStatistic> statistics = snapshot(shop -> true);
+    ByteBuffer buffer = ByteBuffer.allocate(2 * Integer.BYTES + statistics.size() * RECORD_SIZE);
+    buffer.putInt(VERSION);
+    buffer.putInt(statistics.size());
+    for (ShopStatistic statistic : statistics) {
+      IndexedTradeSign shop = statistic.shop();
+      buffer.putLong(shop.worldId().getMostSignificantBits());
+      buffer.putLong(shop.worldId().getLeastSignificantBits());
+      buffer.putLong(shop.signPosition());
+      buffer.putLong(shop.blockPosition());
+      buffer.putLong(shop.owner().getMostSignificantBits());
+      buffer.putLong(shop.owner().getLeastSignificantBits());
+      buffer.putLong(statistic.lotsSold());
+      buffer.putLong(statistic.coinsEarned());
+      buffer.putLong(statistic.lastSaleTick());
+      buffer.putLong(statistic.restocks());
+    }
+    try {
+      Files.createDirectories(file.toAbsolutePath().getParent());
+      Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.write(temporary, buffer.array());
+      Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING,
+          StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger()
+          .log(Level.WARNING, e, () -> "Could not write the shop statistics");
+    }
+  }
+
+  private static ShopStatistic toStatistic(IndexedTradeSign shop, ShopCounters shopCounters) {
+    return new ShopStatistic(shop, shopCounters.lotsSold.sum(), shopCounters.coinsEarned.sum(),
+        shopCounters.lastSaleTick, shopCounters.restocks.sum());
+  }
+}
@@ -0,0 +1,209 @@
+package com.github.sowasvonbot.util;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import javax.annotation.Nullable;
+import org.bukkit.configuration.serialization.ConfigurationSerializable;
+import org.bukkit.configuration.serialization.ConfigurationSerialization;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Compact, versioned binary format for {@link ItemStack ItemStacks}. Items are written as a tagged
+ * tree of their {@link ConfigurationSerializable} representation.
+ */
+public class BinaryCodec {
+
+  public static final byte VERSION = 1;
+
+  private static final byte TAG_NULL = 0;
+  private static final byte TAG_STRING = 1;
+  private static final byte TAG_INT = 2;
+  private static final byte TAG_LONG = 3;
+  private static final byte TAG_DOUBLE = 4;
+  private static final byte TAG_FLOAT = 5;
+  private static final byte TAG_BOOLEAN = 6;
+  private static final byte TAG_SHORT = 7;
+  private static final byte TAG_BYTE = 8;
+  private static final byte TAG_LIST = 9;
+  private static final byte TAG_MAP = 10;
+  private static final byte TAG_SERIALIZABLE = 11;
+
+  /**
+   * Encodes the given item. The {@link Optional} is empty, if the item contains data which can not
+   * be represented in this format.
+   *
+   * @param itemStack {@link ItemStack} to encode
+   * @return a filled {@link Optional} if the encoding was successful
+   */
+  public static Optional<byte[]> encodeItem(ItemStack itemStack) {
+    try {
+      ByteArrayOutputStream bos = new ByteArrayOutputStream(64);
+      DataOutputStream out = new DataOutputStream(bos);
+      out.writeByte(VERSION);
+      writeValue(out, itemStack);
+      out.flush();
+      return Optional.of(bos.toByteArray());
+    } catch (IOException e) {
+      RealCoinsPlugin.getPluginLogger().warning(e.getMessage());
+    }
+    return Optional.empty();
+  }
+
+  /**
+   * Decodes an item encoded with {@link #encodeItem(ItemStack)}.
+   *
+   * @param data encoded item
+   * @return {@link ItemStack}, null if the data could not be decoded
+   */
+  public static @Nullable ItemStack decodeItem(byte[] data) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+      byte version = in.readByte();
+      if (version != VERSION) {
+        throw new IOException(String.format("Unknown item format version %d", version));
+      }
+      Object value = readValue(in);
+      return value instanceof ItemStack itemStack ? itemStack : null;
+    } catch (Exception e) {
+      RealCoinsPlugin.getPluginLogger().warning(e.getMessage());
+    }
+    return null;
+  }
+
+  private static void writeValue(DataOutputStream out, @Nullable Object value) throws IOException {
+    if (value == null) {
+      out.writeByte(TAG_NULL);
+    } else if (value instanceof String string) {
+      out.writeByte(TAG_STRING);
+      writeString(out, string);
+    } else if (value instanceof Integer integer) {
+      out.writeByte(TAG_INT);
+      writeVarInt(out, integer);
+    } else if (value instanceof Long longValue) {
+      out.writeByte(TAG_LONG);
+      out.writeLong(longValue);
+    } else if (value instanceof Double doubleValue) {
+      out.writeByte(TAG_DOUBLE);
+      out.writeDouble(doubleValue);
+    } else if (value instanceof Float floatValue) {
+      out.writeByte(TAG_FLOAT);
+      out.writeFloat(floatValue);
+    } else if (value instanceof Boolean bool) {
+      out.writeByte(TAG_BOOLEAN);
+      out.writeBoolean(bool);
+    } else if (value instanceof Short shortValue) {
+      out.writeByte(TAG_SHORT);
+      out.writeShort(shortValue);
+    } else if (value instanceof Byte byteValue) {
+      out.writeByte(TAG_BYTE);
+      out.writeByte(byteValue);
+    } else if (value instanceof List<?> list) {
+      out.writeByte(TAG_LIST);
+      writeVarInt(out, list.size());
+      for (Object element : list) {
+        writeValue(out, element);
+      }
+    } else if (value instanceof Map<?, ?> map) {
+      out.writeByte(TAG_MAP);
+      writeMap(out, map);
+    } else if (value instanceof ConfigurationSerializable serializable) {
+      out.writeByte(TAG_SERIALIZABLE);
+      writeString(out, ConfigurationSerialization.getAlias(serializable.getClass()));
+      writeMap(out, serializable.serialize());
+    } else {
+      throw new IOException(
+          String.format("Can not encode value of type %s", value.getClass().getName()));
+    }
+  }
+
+  private static void writeMap(DataOutputStream out, Map<?, ?> map) throws IOException {
+    writeVarInt(out, map.size());
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      writeString(out, String.valueOf(entry.getKey()));
+      writeValue(out, entry.getValue());
+    }
+  }
+
+  private static @Nullable Object readValue(DataInputStream in) throws IOException {
+    byte tag = in.readByte();
+    return switch (tag) {
+      case TAG_NULL -> null;
+      case TAG_STRING -> readString(in);
+      case TAG_INT -> readVarInt(in);
+      case TAG_LONG -> in.readLong();
+      case TAG_DOUBLE -> in.readDouble();
+      case TAG_FLOAT -> in.readFloat();
+      case TAG_BOOLEAN -> in.readBoolean();
+      case TAG_SHORT -> in.readShort();
+      case TAG_BYTE -> in.readByte();
+      case TAG_LIST -> {
+        int size = readVarInt(in);
+        List<Object> list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+          list.add(readValue(in));
+        }
+        yield list;
+      }
+      case TAG_MAP -> readMap(in);
+      case TAG_SERIALIZABLE -> {
+        String alias = readString(in);
+        Map<String, Object> map = readMap(in);
+        map.put(ConfigurationSerialization.SERIALIZED_TYPE_KEY, alias);
+        yield ConfigurationSerialization.deserializeObject(map);
+      }
+      default -> throw new IOException(String.format("Unknown value tag %d", tag));
+    };
+  }
+
+  private static Map<String, Object> readMap(DataInputStream in) throws IOException {
+    int size = readVarInt(in);
+    Map<String, Object> map = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      String key = readString(in);
+      map.put(key, readValue(in));
+    }
+    return map;
+  }
+
+  private static void writeString(DataOutputStream out, String string) throws IOException {
+    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+    writeVarInt(out, bytes.length);
+    out.write(bytes);
+  }
+
+  private static String readString(DataInputStream in) throws IOException {
+    byte[] bytes = new byte[readVarInt(in)];
+    in.readFully(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private static void writeVarInt(DataOutputStream out, int value) throws IOException {
+    while ((value & ~0x7F) != 0) {
+      out.writeByte((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    out.writeByte(value);
+  }
+
+  private static int readVarInt(DataInputStream in) throws IOException {
+    int value = 0;
+    for (int shift = 0; shift < 35; shift += 7) {
+      byte current = in.readByte();
+      value |= (current & 0x7F) << shift;
+      if ((current & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IOException("VarInt too long");
+  }
+}
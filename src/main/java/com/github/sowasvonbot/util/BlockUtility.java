@@ -21,6 +21,56 @@ public class BlockUtility {
 
   public static final int SIGN_LINE_LENGTH = 15;
 
+  /**
+   * Packs the given block coordinates into one long. 26 bits are used for x and z, 12 bits for y,
+   * which covers the whole world border and build height.
+   *
+   * @param x block x coordinate
+   * @param y block y coordinate
+   * @param z block z coordinate
+   * @return the packed position
+   */
+  public static long packPosition(int x, int y, int z) {
+    return ((long) (x & 0x3FFFFFF) << 38) | ((long) (z & 0x3FFFFFF) << 12) | (y & 0xFFF);
+  }
+
+  public static long packPosition(Block block) {
+    return packPosition(block.getX(), block.getY(), block.getZ());
+  }
+
+  public static int unpackX(long position) {
+    return (int) (position >> 38);
+  }
+
+  public static int unpackY(long position) {
+    return (int) (position << 52 >> 52);
+  }
+
+  public static int unpackZ(long position) {
+    return (int) (position << 26 >> 38);
+  }
+
+  /**
+   * Packs the given chunk coordinates into one long.
+   *
+   * @param chunkX chunk x coordinate
+   * @param chunkZ chunk z coordinate
+   * @return the packed chunk position
+   */
+  public static long packChunk(int chunkX, int chunkZ) {
+    return ((long) chunkX << 32) | (chunkZ & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the packed chunk of a packed block position.
+   *
+   * @param position a position packed with {@link #packPosition(int, int, int)}
+   * @return the packed chunk position
+   */
+  public static long chunkOfPosition(long position) {
+    return packChunk(unpackX(position) >> 4, unpackZ(position) >> 4);
+  }
+
   /**
    * Returns the block which supports a wall sign.
    *
@@ -41,7 +41,7 @@ public abstract class BreakListener implements Listener {
 
   @EventHandler
   public void preventBlockDestroyed(EntityExplodeEvent event) {
-    event.blockList().removeIf(this::keepBlock);
+    event.blockList().removeIf(this::keepProtectedBlock);
   }
 
   @EventHandler
@@ -51,12 +51,20 @@ public abstract class BreakListener implements Listener {
 
   @EventHandler
   public void preventBlockMoved(BlockPistonRetractEvent event) {
-    event.setCancelled(event.getBlocks().stream().anyMatch(this::keepBlock));
+    event.setCancelled(event.getBlocks().stream().anyMatch(this::keepProtectedBlock));
   }
 
   @EventHandler
   public void preventBlockMoved(BlockPistonExtendEvent event) {
-    event.setCancelled(event.getBlocks().stream().anyMatch(this::keepBlock));
+    event.setCancelled(event.getBlocks().stream().anyMatch(this::keepProtectedBlock));
+  }
+
+  /**
+   * Checks many blocks at once, e.g. for explosions and pistons. Only blocks registered in the
+   * {@link ProtectedBlockRegistry} are checked with {@link #keepBlock(Block, Optional)}.
+   */
+  private boolean keepProtectedBlock(Block block) {
+    return ProtectedBlockRegistry.getInstance().isProtected(block) && keepBlock(block);
   }
 
   private boolean keepBlock(Block block) {
@@ -0,0 +1,136 @@
+package com.github.sowasvonbot.util;
+
+import static java.util.Objects.requireNonNull;
+
+import com.github.sowasvonbot.RealCoinsPlugin;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.bukkit.Chunk;
+import org.bukkit.NamespacedKey;
+import org.bukkit.block.Block;
+import org.bukkit.persistence.PersistentDataContainer;
+import org.bukkit.persistence.PersistentDataType;
+
+/**
+ * Compact list of the plugin signs inside a chunk, stored in the persistent data of the chunk.
+ * Reading the manifest rebuilds the state of a chunk without iterating its tile entities. A
+ * missing manifest means the chunk was not scanned yet, an empty one means it contains no signs.
+ */
+public class ChunkManifest {
+
+  // packed sign position, packed supporting block position, owner most and least bits
+  private static final int ENTRY_LENGTH = 4;
+
+  /**
+   * Kinds of signs listed in the manifest, each kind is stored under its own key.
+   */
+  public enum Kind {
+    TRADE_SIGN("manifest_trade_signs"),
+    COIN_SIGN("manifest_coin_signs");
+
+    private final NamespacedKey key;
+
+    Kind(String key) {
+      this.key = requireNonNull(NamespacedKey.fromString(key, RealCoinsPlugin.COINS_PLUGIN));
+    }
+  }
+
+  /**
+   * One sign of the manifest.
+   *
+   * @param signPosition  packed position of the sign, see {@link BlockUtility#packPosition}
+   * @param blockPosition packed position of the block supporting the sign
+   * @param owner         {@link UUID} of the owner of the sign
+   */
+  public record Entry(long signPosition, long blockPosition, UUID owner) {
+  }
+
+  /**
+   * Reads all signs of the given kind.
+   *
+   * @param chunk a loaded {@link Chunk}
+   * @param kind  the {@link Kind} to read
+   * @return the listed signs, empty if the chunk has no manifest yet
+   */
+  public static Optional<List<Entry>> read(Chunk chunk, Kind kind) {
+    long[] data = chunk.getPersistentDataContainer().get(kind.key, PersistentDataType.LONG_ARRAY);
+    if (data == null) {
+      return Optional.empty();
+    }
+    List<Entry> entries = new ArrayList<>(data.length / ENTRY_LENGTH);
+    for (int i = 0; i + ENTRY_LENGTH <= data.length; i += ENTRY_LENGTH) {
+      entries.add(new Entry(data[i], data[i + 1], new UUID(data[i + 2], data[i + 3])));
+    }
+    return Optional.of(entries);
+  }
+
+  /**
+   * Replaces the manifest of the given kind, e.g. after scanning the chunk.
+   *
+   * @param chunk   a loaded {@link Chunk}
+   * @param kind    the {@link Kind} to write
+   * @param entries all signs of the kind inside the chunk
+   */
+  public static void write(Chunk chunk, Kind kind, List<Entry> entries) {
+    long[] data = new long[entries.size() * ENTRY_LENGTH];
+    int i = 0;
+    for (Entry entry : entries) {
+      data[i++] = entry.signPosition();
+      data[i++] = entry.blockPosition();
+      data[i++] = entry.owner().getMostSignificantBits();
+      data[i++] = entry.owner().getLeastSignificantBits();
+    }
+    chunk.getPersistentDataContainer().set(kind.key, PersistentDataType.LONG_ARRAY, data);
+  }
+
+  /**
+   * Lists a new sign in the manifest of its chunk. Chunks without a manifest are left alone, the
+   * sign is found when the chunk is scanned.
+   *
+   * @param sign  the sign {@link Block}
+   * @param kind  the {@link Kind} of the sign
+   * @param entry the {@link Entry} describing the sign
+   */
+  public static void add(Block sign, Kind kind, Entry entry) {
+    Chunk chunk = sign.getChunk();
+    read(chunk, kind).ifPresent(entries -> {
+      entries.removeIf(existing -> existing.signPosition() == entry.signPosition());
+      entries.add(entry);
+      write(chunk, kind, entries);
+    });
+  }
+
+  /**
+   * Removes a broken sign from the manifest of its chunk.
+   *
+   * @param sign the sign {@link Block}
+   * @param kind the {@link Kind} of the sign
+   */
+  public static void remove(Block sign, Kind kind) {
+    Chunk chunk = sign.getChunk();
+    long position = BlockUtility.packPosition(sign);
+    read(chunk, kind).ifPresent(entries -> {
+      if (entries.removeIf(entry -> entry.signPosition() == position)) {
+        write(chunk, kind, entries);
+      }
+    });
+  }
+
+  /**
+   * Checks if the chunk was scanned for all kinds of signs.
+   *
+   * @param chunk a loaded {@link Chunk}
+   * @return true, if every {@link Kind} has a manifest
+   */
+  public static boolean isComplete(Chunk chunk) {
+    PersistentDataContainer dataContainer = chunk.getPersistentDataContainer();
+    for (Kind kind : Kind.values()) {
+      if (!dataContainer.has(kind.key, PersistentDataType.LONG_ARRAY)) {
+        return false;
+      }
+    }
+    return true;
+  }
+}
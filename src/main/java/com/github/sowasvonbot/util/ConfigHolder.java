@@ -1,50 +1,71 @@
 package com.github.sowasvonbot.util;
 
 import com.github.sowasvonbot.RealCoinsPlugin;
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.EnumMap;
+import java.util.IllegalFormatException;
+import java.util.Locale;
+import java.util.Map;
 import java.util.Objects;
+import java.util.UUID;
 import java.util.function.Predicate;
+import javax.annotation.Nullable;
+import org.bukkit.Material;
+import org.bukkit.configuration.ConfigurationSection;
 import org.bukkit.configuration.file.FileConfiguration;
 import org.bukkit.plugin.java.JavaPlugin;
 
 /**
- * Hold the whole plugin config.
+ * Hold the whole plugin config. The config.yml is compiled into a {@link ConfigSnapshot} on load,
+ * invalid values are replaced with their defaults once. Reads only access the current snapshot.
  */
 public class ConfigHolder {
 
-  private final FileConfiguration fileConfiguration;
+  private final JavaPlugin javaPlugin;
+  private volatile ConfigSnapshot snapshot;
   private static ConfigHolder instance;
 
   private ConfigHolder(JavaPlugin javaPlugin) {
+    this.javaPlugin = javaPlugin;
     javaPlugin.saveDefaultConfig();
-    fileConfiguration = javaPlugin.getConfig();
+    snapshot = compile(javaPlugin.getConfig());
   }
 
   /**
-   * Return the String behind the given {@link ConfigField}. If the value is not a String, use the
-   * default value. For custom checks see {@link #getValue(ConfigField, Predicate)}
+   * Return the value behind the given {@link ConfigField}. The value was validated when the config
+   * was loaded, invalid values are replaced with the default value.
    *
-   * @param field {@link ConfigField} to search
-   * @return the associated String Value
+   * @param field      {@link ConfigField} to search
+   * @param valueClass type of the field, see {@link ConfigField#getType()}
+   * @return the associated value
+   * @throws IllegalArgumentException if the field has another type
    */
   public <T> T getValue(ConfigField field, Class<T> valueClass) {
-    return this.getValue(field, valueClass, (e) -> true);
+    if (field.getType() != valueClass) {
+      throw new IllegalArgumentException(String.format("%s is of type %s, not %s", field,
+          field.getType().getSimpleName(), valueClass.getSimpleName()));
+    }
+    return valueClass.cast(snapshot.get(field));
   }
 
   /**
-   * Return the Value behind the given {@link ConfigField}. If the value is not of the requested
-   * type, use the default value. If the custom check fails, also use the default value.
+   * Returns the current snapshot of the whole config.
    *
-   * @param field      {@link ConfigField} to search
-   * @param valueCheck custom Check as {@link Predicate}, should return false if check fails
-   * @return the associated String Value
+   * @return the current {@link ConfigSnapshot}
    */
-  public <T> T getValue(ConfigField field, Class<T> valueClass, Predicate<T> valueCheck) {
-    T possibleValue = fileConfiguration.getObject(field.getPath(), valueClass);
-    if (!predCheck(valueCheck, field, possibleValue)) {
-      possibleValue = Objects.requireNonNull(fileConfiguration.getDefaults())
-          .getObject(field.getPath(), valueClass);
-    }
-    return possibleValue;
+  public ConfigSnapshot getSnapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Reads the config.yml again and swaps the snapshot. Readers see either the old or the new
+   * snapshot, never a mix.
+   */
+  public void reload() {
+    javaPlugin.reloadConfig();
+    snapshot = compile(javaPlugin.getConfig());
   }
 
   /**
@@ -52,6 +73,7 @@ public class ConfigHolder {
    *
    * @return Singleton Instance
    */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
   public static ConfigHolder getInstance() {
     if (instance == null) {
       instance = new ConfigHolder(RealCoinsPlugin.COINS_PLUGIN);
@@ -59,6 +81,55 @@ public class ConfigHolder {
     return instance;
   }
 
+  private static ConfigSnapshot compile(FileConfiguration fileConfiguration) {
+    ConfigurationSection defaults = Objects.requireNonNull(fileConfiguration.getDefaults());
+    Map<ConfigField, Object> values = new EnumMap<>(ConfigField.class);
+    for (ConfigField field : ConfigField.values()) {
+      Object value = readValue(fileConfiguration, field);
+      if (!predCheck(field, value)) {
+        value = readValue(defaults, field);
+      }
+      values.put(field, Objects.requireNonNull(value,
+          () -> String.format("Missing default value for %s", field)));
+    }
+    // the validators only see their own field
+    if ((Double) values.get(ConfigField.DYNAMIC_PRICING_MIN_FACTOR)
+        > (Double) values.get(ConfigField.DYNAMIC_PRICING_MAX_FACTOR)) {
+      RealCoinsPlugin.COINS_PLUGIN.getLogger().warning(() -> String.format(
+          "Found %s larger than %s. Using default values",
+          ConfigField.DYNAMIC_PRICING_MIN_FACTOR, ConfigField.DYNAMIC_PRICING_MAX_FACTOR));
+      values.put(ConfigField.DYNAMIC_PRICING_MIN_FACTOR,
+          readValue(defaults, ConfigField.DYNAMIC_PRICING_MIN_FACTOR));
+      values.put(ConfigField.DYNAMIC_PRICING_MAX_FACTOR,
+          readValue(defaults, ConfigField.DYNAMIC_PRICING_MAX_FACTOR));
+    }
+    Map<ConfigField, String> strings = new EnumMap<>(ConfigField.class);
+    Map<ConfigField, Integer> integers = new EnumMap<>(ConfigField.class);
+    Map<ConfigField, Double> decimals = new EnumMap<>(ConfigField.class);
+    Map<ConfigField, Boolean> booleans = new EnumMap<>(ConfigField.class);
+    values.forEach((field, value) -> {
+      if (value instanceof String string) {
+        strings.put(field, string);
+      } else if (value instanceof Integer integer) {
+        integers.put(field, integer);
+      } else if (value instanceof Double decimal) {
+        decimals.put(field, decimal);
+      } else if (value instanceof Boolean bool) {
+        booleans.put(field, bool);
+      }
+    });
+    return new ConfigSnapshot(strings, integers, decimals, booleans);
+  }
+
+  private static @Nullable Object readValue(ConfigurationSection section, ConfigField field) {
+    Object value = section.get(field.getPath());
+    // whole numbers are read as Integer, even for fields of type Double
+    if (field.getType() == Double.class && value instanceof Number number) {
+      return number.doubleValue();
+    }
+    return field.getType().isInstance(value) ? value : null;
+  }
+
   /**
    * Predicate used for Strings with a maximum allowed Number of chars. Fails if the chars in the
    * String exceed the given charAmount. Also logs a warning if the check fails.
@@ -78,8 +149,65 @@ public class ConfigHolder {
     };
   }
 
-  private static <T> boolean predCheck(Predicate<T> predicate, ConfigField field, T value) {
-    if (!predicate.test(value)) {
+  /**
+   * Predicate used for messages, which are formatted with {@link String#format}. Fails if the
+   * message does not accept the given sample arguments, e.g. because a placeholder has the wrong
+   * type. Also logs a warning if the check fails.
+   *
+   * @param arguments samples of the arguments the message is formatted with
+   * @return a {@link Predicate} to check the placeholders of a message
+   */
+  public static Predicate<String> getFormatPredicate(Object... arguments) {
+    return (String test) -> {
+      try {
+        String.format(test, arguments);
+        return true;
+      } catch (IllegalFormatException e) {
+        RealCoinsPlugin.COINS_PLUGIN.getLogger().warning(
+            () -> String.format("Message %s does not fit its arguments: %s", test,
+                e.getMessage()));
+        return false;
+      }
+    };
+  }
+
+  private static boolean isUrl(String value) {
+    try {
+      new URL(value);
+      return true;
+    } catch (MalformedURLException e) {
+      return false;
+    }
+  }
+
+  private static boolean isUuid(String value) {
+    try {
+      UUID.fromString(value);
+      return true;
+    } catch (IllegalArgumentException e) {
+      return false;
+    }
+  }
+
+  private static boolean isDenominationList(String value) {
+    boolean unitCoin = false;
+    for (String denomination : value.split(",")) {
+      try {
+        int parsed = Integer.parseInt(denomination.trim());
+        if (parsed < 1) {
+          return false;
+        }
+        unitCoin |= parsed == 1;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+    // every amount has to be payable
+    return unitCoin;
+  }
+
+  private static boolean predCheck(ConfigField field, @Nullable Object value) {
+    if (value == null || !field.test(value)) {
       RealCoinsPlugin.COINS_PLUGIN.getLogger().warning(
           () -> String.format("Found invalid configuration for %s: %s. Using default value", field,
               value));
@@ -92,12 +220,96 @@ public class ConfigHolder {
    * All currently present config fields in the default config.
    */
   public enum ConfigField {
-    COIN_DISPLAY_NAME, COIN_SMELT_EXP, COIN_SMELT_TIME, SIGN_PREFIX, STORAGE_CHEST_PREFIX,
-    ERROR_CREATE_TRADING_SIGN, ERROR_INVALID_TRADE_CHEST, ERROR_NOT_COIN_DURING_PAY,
-    COIN_MESSAGE_FAKE, COIN_MESSAGE_REAL, ERROR_CREATE_COIN_CHEST, COMMAND_MESSAGE_COIN,
-    COIN_USE_HEAD, COIN_ITEM_MATERIAL, COIN_HEAD_VALUE, COIN_HEAD_PLAYER_UUID,
-    COIN_RESOURCE_PACK_URL, COIN_USE_RESOURCE_PACK, COIN_RECIPE_SHAPE,
-    COIN_RECIPE_AMOUNT;
+    COIN_DISPLAY_NAME("coin.display_name", String.class),
+    COIN_SMELT_EXP("coin.smelt_exp", Integer.class, (Integer smeltExp) -> smeltExp >= 0),
+    COIN_SMELT_TIME("coin.smelt_time", Integer.class, (Integer smeltTime) -> smeltTime >= 0),
+    SIGN_PREFIX("coin_sign.prefix", String.class,
+        getMaxCharsPredicate(BlockUtility.SIGN_LINE_LENGTH)),
+    STORAGE_CHEST_PREFIX("storage_chest.prefix", String.class,
+        getMaxCharsPredicate(BlockUtility.SIGN_LINE_LENGTH)),
+    ERROR_CREATE_TRADING_SIGN("error_messages.create_trading_sign", String.class),
+    ERROR_INVALID_TRADE_CHEST("error_messages.invalid_trade_chest", String.class),
+    ERROR_NOT_COIN_DURING_PAY("error_messages.not_coin_during_pay", String.class),
+    COIN_MESSAGE_FAKE("coin_messages.fake_coin", String.class),
+    COIN_MESSAGE_REAL("coin_messages.real_coin", String.class),
+    ERROR_CREATE_COIN_CHEST("error_messages.create_coin_chest", String.class),
+    COMMAND_MESSAGE_COIN("command_message.coins", String.class,
+        (String message) -> message.contains("%d")),
+    COMMAND_MESSAGE_RELOADED("command_message.reloaded", String.class),
+    COMMAND_MESSAGE_TIMINGS_RESET("command_message.timings_reset", String.class),
+    COMMAND_MESSAGE_NO_TIMINGS("command_message.no_timings", String.class),
+    COMMAND_MESSAGE_SUPPLY("command_message.supply", String.class,
+        getFormatPredicate(1L, 1L, 1L, 1L)),
+    COMMAND_MESSAGE_SUPPLY_HISTORY("command_message.supply_history", String.class,
+        getFormatPredicate("", 1L, 1L, 1L)),
+    COMMAND_MESSAGE_NO_SUPPLY_HISTORY("command_message.no_supply_history", String.class),
+    COMMAND_MESSAGE_LEDGER_BOUGHT("command_message.ledger_bought", String.class,
+        getFormatPredicate("", 1, 1, "", "", 1, 1, 1, 1)),
+    COMMAND_MESSAGE_LEDGER_SOLD("command_message.ledger_sold", String.class,
+        getFormatPredicate("", 1, 1, "", "", 1, 1, 1, 1)),
+    COMMAND_MESSAGE_NO_TRADES("command_message.no_trades", String.class),
+    COMMAND_MESSAGE_SHOP_STATISTICS_PAGE("command_message.shop_statistics_page", String.class,
+        getFormatPredicate(1, 1)),
+    COMMAND_MESSAGE_SHOP_STATISTICS("command_message.shop_statistics", String.class,
+        getFormatPredicate("", 1, 1, 1, 1L, 1L, 1L, "")),
+    COMMAND_MESSAGE_LAST_SALE("command_message.last_sale", String.class,
+        getFormatPredicate(1L)),
+    COMMAND_MESSAGE_NEVER_SOLD("command_message.never_sold", String.class),
+    COMMAND_MESSAGE_NO_SHOPS("command_message.no_shops", String.class),
+    COMMAND_MESSAGE_FOUND_SHOP("command_message.found_shop", String.class,
+        getFormatPredicate("", 1, 1, 1.0, 1, 1, 1, 1, 1L)),
+    COMMAND_MESSAGE_NO_SHOPS_NEARBY("command_message.no_shops_nearby", String.class),
+    COMMAND_MESSAGE_DYNAMIC_PRICING_ON("command_message.dynamic_pricing_on", String.class),
+    COMMAND_MESSAGE_DYNAMIC_PRICING_OFF("command_message.dynamic_pricing_off", String.class),
+    ERROR_NOT_ALLOWED("error_messages.not_allowed", String.class),
+    ERROR_UNKNOWN_ITEM("error_messages.unknown_item", String.class, getFormatPredicate("")),
+    ERROR_UNKNOWN_PLAYER("error_messages.unknown_player", String.class, getFormatPredicate("")),
+    ERROR_LEDGER_UNREADABLE("error_messages.ledger_unreadable", String.class),
+    ERROR_NO_TRADING_SIGN_TARGETED("error_messages.no_trading_sign_targeted", String.class),
+    COIN_USE_HEAD("coin.use_head", Boolean.class),
+    COIN_ITEM_MATERIAL("coin.item_material", String.class,
+        (String material) -> Material.matchMaterial(material.toUpperCase(Locale.ROOT)) != null),
+    COIN_HEAD_VALUE("coin.head_value", String.class),
+    COIN_HEAD_PLAYER_UUID("coin.head_player_uuid", String.class, ConfigHolder::isUuid),
+    COIN_RESOURCE_PACK_URL("coin.resource_pack_url", String.class, ConfigHolder::isUrl),
+    COIN_USE_RESOURCE_PACK("coin.use_resource_pack", Boolean.class),
+    COIN_RECIPE_SHAPE("coin.recipe.shape", String.class),
+    COIN_DENOMINATIONS("coin.denominations", String.class, ConfigHolder::isDenominationList),
+    COIN_DENOMINATION_DISPLAY_NAME("coin.denomination_display_name", String.class),
+    COIN_RECIPE_AMOUNT("coin.recipe.amount", Integer.class,
+        (Integer amount) -> amount > 0 && amount <= 64),
+    DYNAMIC_PRICING_HALF_LIFE("dynamic_pricing.half_life_ticks", Integer.class,
+        (Integer ticks) -> ticks > 0),
+    DYNAMIC_PRICING_DEMAND_WEIGHT("dynamic_pricing.demand_weight", Double.class,
+        (Double weight) -> weight >= 0),
+    DYNAMIC_PRICING_STOCK_WEIGHT("dynamic_pricing.stock_weight", Double.class,
+        (Double weight) -> weight >= 0),
+    DYNAMIC_PRICING_MIN_FACTOR("dynamic_pricing.min_factor", Double.class,
+        (Double factor) -> factor > 0),
+    DYNAMIC_PRICING_MAX_FACTOR("dynamic_pricing.max_factor", Double.class,
+        (Double factor) -> factor >= 1),
+    PAYOUT_TICK_BUDGET("payout.tick_budget_micros", Integer.class, (Integer micros) -> micros > 0),
+    PAYOUT_COINS_PER_TURN("payout.coins_per_turn", Integer.class, (Integer coins) -> coins > 0),
+    METRICS_FILE_INTERVAL("metrics.file_interval_seconds", Integer.class,
+        (Integer seconds) -> seconds >= 0),
+    MANIFEST_BACKFILL_BUDGET("manifest.backfill_budget_micros", Integer.class,
+        (Integer micros) -> micros > 0),
+    SUPPLY_SNAPSHOT_INTERVAL("supply.snapshot_interval_seconds", Integer.class,
+        (Integer seconds) -> seconds > 0);
+
+    private final String path;
+    private final Class<?> type;
+    private final Predicate<Object> validator;
+
+    <T> ConfigField(String path, Class<T> type) {
+      this(path, type, (T value) -> true);
+    }
+
+    <T> ConfigField(String path, Class<T> type, Predicate<T> validator) {
+      this.path = path;
+      this.type = type;
+      this.validator = value -> validator.test(type.cast(value));
+    }
 
     /**
      * Returns the <b>absolute</b> path for this {@link ConfigField} in the config.yml. May be used
@@ -106,32 +318,20 @@ public class ConfigHolder {
      * @return the path to the field as String
      */
     public String getPath() {
-      return switch (this) {
-        case COIN_SMELT_EXP -> "coin.smelt_exp";
-        case COIN_SMELT_TIME -> "coin.smelt_time";
-        case COIN_DISPLAY_NAME -> "coin.display_name";
-        case COIN_USE_HEAD -> "coin.use_head";
-        case COIN_ITEM_MATERIAL -> "coin.item_material";
-        case COIN_HEAD_VALUE -> "coin.head_value";
-        case COIN_HEAD_PLAYER_UUID -> "coin.head_player_uuid";
-        case COIN_USE_RESOURCE_PACK -> "coin.use_resource_pack";
-        case COIN_RESOURCE_PACK_URL -> "coin.resource_pack_url";
-        case COIN_RECIPE_SHAPE -> "coin.recipe.shape";
-        case COIN_RECIPE_AMOUNT -> "coin.recipe.amount";
-
-        case COMMAND_MESSAGE_COIN -> "command_message.coins";
-
-        case SIGN_PREFIX -> "coin_sign.prefix";
-        case STORAGE_CHEST_PREFIX -> "storage_chest.prefix";
-
-        case ERROR_CREATE_TRADING_SIGN -> "error_messages.create_trading_sign";
-        case ERROR_CREATE_COIN_CHEST -> "error_messages.create_coin_chest";
-        case ERROR_INVALID_TRADE_CHEST -> "error_messages.invalid_trade_chest";
-        case ERROR_NOT_COIN_DURING_PAY -> "error_messages.not_coin_during_pay";
-
-        case COIN_MESSAGE_FAKE -> "coin_messages.fake_coin";
-        case COIN_MESSAGE_REAL -> "coin_messages.real_coin";
-      };
+      return path;
+    }
+
+    /**
+     * Returns the type every value of this field has.
+     *
+     * @return the {@link Class} of the values
+     */
+    public Class<?> getType() {
+      return type;
+    }
+
+    private boolean test(Object value) {
+      return validator.test(value);
     }
   }
 }
@@ -0,0 +1,82 @@
+package com.github.sowasvonbot.util;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Immutable, validated values of every {@link ConfigHolder.ConfigField}. Built once per (re)load
+ * by {@link ConfigHolder}, the values are grouped by the type declared by their field. Reading
+ * several values from one snapshot never mixes an old and a reloaded config.
+ *
+ * @param strings  values of all fields of type {@link String}
+ * @param integers values of all fields of type {@link Integer}
+ * @param decimals values of all fields of type {@link Double}
+ * @param booleans values of all fields of type {@link Boolean}
+ */
+public record ConfigSnapshot(Map<ConfigHolder.ConfigField, String> strings,
+                             Map<ConfigHolder.ConfigField, Integer> integers,
+                             Map<ConfigHolder.ConfigField, Double> decimals,
+                             Map<ConfigHolder.ConfigField, Boolean> booleans) {
+
+  /**
+   * Copies the given values, every field has to be contained in the map of its type.
+   */
+  public ConfigSnapshot {
+    strings = copy(strings);
+    integers = copy(integers);
+    decimals = copy(decimals);
+    booleans = copy(booleans);
+  }
+
+  private static <T> Map<ConfigHolder.ConfigField, T> copy(Map<ConfigHolder.ConfigField, T> map) {
+    Map<ConfigHolder.ConfigField, T> copy = new EnumMap<>(ConfigHolder.ConfigField.class);
+    copy.putAll(map);
+    return Collections.unmodifiableMap(copy);
+  }
+
+  public String getString(ConfigHolder.ConfigField field) {
+    return read(strings, field, String.class);
+  }
+
+  public int getInt(ConfigHolder.ConfigField field) {
+    return read(integers, field, Integer.class);
+  }
+
+  public double getDouble(ConfigHolder.ConfigField field) {
+    return read(decimals, field, Double.class);
+  }
+
+  public boolean getBoolean(ConfigHolder.ConfigField field) {
+    return read(booleans, field, Boolean.class);
+  }
+
+  /**
+   * Returns the value of the given field without knowing its type, see
+   * {@link ConfigHolder#getValue(ConfigHolder.ConfigField, Class)}.
+   */
+  Object get(ConfigHolder.ConfigField field) {
+    Class<?> type = field.getType();
+    if (type == String.class) {
+      return getString(field);
+    }
+    if (type == Integer.class) {
+      return getInt(field);
+    }
+    if (type == Double.class) {
+      return getDouble(field);
+    }
+    return getBoolean(field);
+  }
+
+  private static <T> T read(Map<ConfigHolder.ConfigField, T> values,
+      ConfigHolder.ConfigField field, Class<T> type) {
+    T value = values.get(field);
+    if (value == null) {
+      throw new IllegalArgumentException(
+          String.format("%s is of type %s, not %s", field, field.getType().getSimpleName(),
+              type.getSimpleName()));
+    }
+    return value;
+  }
+}
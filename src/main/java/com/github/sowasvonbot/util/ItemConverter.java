@@ -1,6 +1,8 @@
 package com.github.sowasvonbot.util;
 
 import com.github.sowasvonbot.RealCoinsPlugin;
+import com.github.sowasvonbot.timings.Timing;
+import com.github.sowasvonbot.timings.Timings;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.ObjectInputStream;
@@ -21,12 +23,26 @@ import org.bukkit.inventory.meta.ItemMeta;
  */
 public class ItemConverter {
 
+  private static final Timing ENCODE = Timings.getInstance().timing("item_encode");
+  private static final Timing DECODE = Timings.getInstance().timing("item_decode");
+
   public static Optional<String> convertToBase64(ItemStack[] items) {
     return objectToBase64String(serializeItemStack(items));
   }
 
+  /**
+   * Converts the given {@link ItemStack} to the legacy base64 format.
+   *
+   * @param items {@link ItemStack} to convert
+   * @return a filled {@link Optional} if the conversion was successful
+   */
   public static Optional<String> convertToBase64(ItemStack items) {
-    return objectToBase64String(serializeItemStack(items));
+    long start = ENCODE.start();
+    try {
+      return objectToBase64String(serializeItemStack(items));
+    } finally {
+      ENCODE.stop(start);
+    }
   }
 
   /**
@@ -94,12 +110,47 @@ public class ItemConverter {
    */
   @SuppressWarnings("unchecked")
   public static @Nullable ItemStack convertToItem(String base64) {
-    Optional<Object> serializedData = base64StringToObject(base64);
-    if (serializedData.isEmpty()) {
-      return new ItemStack(Material.AIR);
+    long start = DECODE.start();
+    try {
+      Optional<Object> serializedData = base64StringToObject(base64);
+      if (serializedData.isEmpty()) {
+        return new ItemStack(Material.AIR);
+      }
+      Map<String, Object> returnValue = (Map<String, Object>) serializedData.get();
+      return deserializeItemStack(returnValue);
+    } finally {
+      DECODE.stop(start);
+    }
+  }
+
+  /**
+   * Converts bytes obtained with {@link #convertToBytes(ItemStack)} back to an {@link ItemStack}.
+   *
+   * @param bytes encoded item
+   * @return {@link ItemStack}, null if the bytes could not be decoded
+   */
+  public static @Nullable ItemStack convertToItem(byte[] bytes) {
+    long start = DECODE.start();
+    try {
+      return BinaryCodec.decodeItem(bytes);
+    } finally {
+      DECODE.stop(start);
+    }
+  }
+
+  /**
+   * Converts the given {@link ItemStack} to the compact binary format of {@link BinaryCodec}.
+   *
+   * @param item {@link ItemStack} to convert
+   * @return a filled {@link Optional} if the conversion was successful
+   */
+  public static Optional<byte[]> convertToBytes(ItemStack item) {
+    long start = ENCODE.start();
+    try {
+      return BinaryCodec.encodeItem(item);
+    } finally {
+      ENCODE.stop(start);
     }
-    Map<String, Object> returnValue = (Map<String, Object>) serializedData.get();
-    return deserializeItemStack(returnValue);
   }
 
   private static Map<String, Object> serializeItemStack(ItemStack items) {
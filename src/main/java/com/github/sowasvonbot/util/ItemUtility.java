@@ -35,6 +35,29 @@ public abstract class ItemUtility {
     return itemStack.getType().name().replace('_', ' ').toLowerCase();
   }
 
+  /**
+   * Returns a 64 bit fingerprint of the given {@link ItemStack}, which ignores the amount. Similar
+   * items share the same fingerprint.
+   *
+   * @param itemStack {@link ItemStack} to fingerprint
+   * @return the fingerprint as long
+   */
+  public static long getFingerprint(ItemStack itemStack) {
+    ItemStack single = itemStack.clone();
+    single.setAmount(1);
+    Optional<byte[]> bytes = ItemConverter.convertToBytes(single);
+    if (bytes.isEmpty()) {
+      return single.hashCode();
+    }
+    // 64 bit FNV-1a
+    long hash = 0xcbf29ce484222325L;
+    for (byte value : bytes.get()) {
+      hash ^= value & 0xFF;
+      hash *= 0x100000001b3L;
+    }
+    return hash;
+  }
+
   /**
    * Marks the given ItemStack as unique.
    *
@@ -0,0 +1,130 @@
+package com.github.sowasvonbot.util;
+
+import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import org.bukkit.block.Block;
+
+/**
+ * Positions of all loaded blocks the plugin protects, partitioned per chunk. Explosions and
+ * pistons only ask {@link BreakListener#keepBlock} for registered blocks, blocks in chunks without
+ * any protected block are skipped after a single lookup. Blocks of chunks, which were not scanned
+ * for protected blocks yet, count as protected, so the listeners check them.
+ */
+public class ProtectedBlockRegistry {
+
+  private static ProtectedBlockRegistry instance;
+
+  // world id -> chunk key -> packed positions
+  private final Map<UUID, Map<Long, Set<Long>>> worlds = new HashMap<>();
+  // world id -> keys of the chunks not scanned yet
+  private final Map<UUID, Set<Long>> unscannedChunks = new HashMap<>();
+
+  private ProtectedBlockRegistry() {
+  }
+
+  /**
+   * Singleton for the protected blocks.
+   *
+   * @return {@link ProtectedBlockRegistry} of all loaded protected blocks
+   */
+  @SuppressFBWarnings("MS_EXPOSE_REP")
+  public static ProtectedBlockRegistry getInstance() {
+    if (instance == null) {
+      instance = new ProtectedBlockRegistry();
+    }
+    return instance;
+  }
+
+  /**
+   * Registers a protected block.
+   *
+   * @param worldId  id of the world of the block
+   * @param position position packed with {@link BlockUtility#packPosition(int, int, int)}
+   */
+  public void protect(UUID worldId, long position) {
+    worlds.computeIfAbsent(worldId, id -> new HashMap<>())
+        .computeIfAbsent(BlockUtility.chunkOfPosition(position), chunk -> new HashSet<>())
+        .add(position);
+  }
+
+  /**
+   * Removes a protected block, e.g. because it was broken or its chunk unloaded.
+   *
+   * @param worldId  id of the world of the block
+   * @param position position packed with {@link BlockUtility#packPosition(int, int, int)}
+   */
+  public void release(UUID worldId, long position) {
+    Map<Long, Set<Long>> chunks = worlds.get(worldId);
+    if (chunks == null) {
+      return;
+    }
+    long chunkKey = BlockUtility.chunkOfPosition(position);
+    Set<Long> positions = chunks.get(chunkKey);
+    if (positions != null && positions.remove(position) && positions.isEmpty()) {
+      chunks.remove(chunkKey);
+    }
+  }
+
+  /**
+   * Marks a loaded chunk, whose protected blocks are not registered yet.
+   *
+   * @param worldId  id of the world of the chunk
+   * @param chunkKey chunk packed with {@link BlockUtility#packChunk(int, int)}
+   */
+  public void markUnscanned(UUID worldId, long chunkKey) {
+    unscannedChunks.computeIfAbsent(worldId, id -> new HashSet<>()).add(chunkKey);
+  }
+
+  /**
+   * Marks a chunk as scanned, after its protected blocks were registered.
+   *
+   * @param worldId  id of the world of the chunk
+   * @param chunkKey chunk packed with {@link BlockUtility#packChunk(int, int)}
+   */
+  public void markScanned(UUID worldId, long chunkKey) {
+    Set<Long> chunks = unscannedChunks.get(worldId);
+    if (chunks != null && chunks.remove(chunkKey) && chunks.isEmpty()) {
+      unscannedChunks.remove(worldId);
+    }
+  }
+
+  /**
+   * Checks if the block is protected.
+   *
+   * @param block an arbitrary {@link Block}
+   * @return true, if the block is registered or might be protected by an unscanned chunk
+   */
+  public boolean isProtected(Block block) {
+    if (!unscannedChunks.isEmpty() && isUnscanned(block)) {
+      return true;
+    }
+    Map<Long, Set<Long>> chunks = worlds.get(block.getWorld().getUID());
+    if (chunks == null) {
+      return false;
+    }
+    Set<Long> positions = chunks.get(BlockUtility.packChunk(block.getX() >> 4, block.getZ() >> 4));
+    return positions != null && positions.contains(BlockUtility.packPosition(block));
+  }
+
+  /**
+   * Checks the chunk of the block and, at chunk borders, the neighbouring chunk, since a protected
+   * block might be attached to a block across the border.
+   */
+  private boolean isUnscanned(Block block) {
+    Set<Long> chunks = unscannedChunks.get(block.getWorld().getUID());
+    if (chunks == null) {
+      return false;
+    }
+    int chunkX = block.getX() >> 4;
+    int chunkZ = block.getZ() >> 4;
+    int offsetX = (block.getX() & 15) == 0 ? -1 : (block.getX() & 15) == 15 ? 1 : 0;
+    int offsetZ = (block.getZ() & 15) == 0 ? -1 : (block.getZ() & 15) == 15 ? 1 : 0;
+    return chunks.contains(BlockUtility.packChunk(chunkX, chunkZ))
+        || offsetX != 0 && chunks.contains(BlockUtility.packChunk(chunkX + offsetX, chunkZ))
+        || offsetZ != 0 && chunks.contains(BlockUtility.packChunk(chunkX, chunkZ + offsetZ));
+  }
+}
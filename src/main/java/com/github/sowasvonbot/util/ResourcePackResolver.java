@@ -1,9 +1,6 @@
 package com.github.sowasvonbot.util;
 
 
-import com.github.sowasvonbot.RealCoinsPlugin;
-import java.net.MalformedURLException;
-import java.net.URL;
 import org.bukkit.event.EventHandler;
 import org.bukkit.event.Listener;
 import org.bukkit.event.player.PlayerJoinEvent;
@@ -26,17 +23,7 @@ public class ResourcePackResolver implements Listener {
     }
 
     String url = ConfigHolder.getInstance()
-        .getValue(ConfigHolder.ConfigField.COIN_RESOURCE_PACK_URL, String.class, (urlToTest) -> {
-          try {
-            new URL(urlToTest);
-          } catch (MalformedURLException e) {
-            RealCoinsPlugin.getPluginLogger().warning(
-                () -> String.format("Malformed URL %s used for config field %s", urlToTest,
-                    ConfigHolder.ConfigField.COIN_RESOURCE_PACK_URL.getPath()));
-            return false;
-          }
-          return true;
-        });
+        .getValue(ConfigHolder.ConfigField.COIN_RESOURCE_PACK_URL, String.class);
     playerJoinEvent.getPlayer().setResourcePack(url);
   }
 }
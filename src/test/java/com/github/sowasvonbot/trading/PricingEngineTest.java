@@ -0,0 +1,110 @@
+package com.github.sowasvonbot.trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class PricingEngineTest {
+
+  private static final long HALF_LIFE = 1000;
+  private static final int BASE_PRICE = 1000;
+
+  private long tick = 0;
+
+  private PricingEngine engine(double demandWeight, double stockWeight, double minFactor,
+      double maxFactor) {
+    return new PricingEngine(() -> tick, HALF_LIFE, demandWeight, stockWeight, minFactor,
+        maxFactor);
+  }
+
+  @Test
+  void demandHalvesEveryHalfLife() {
+    PricingEngine engine = engine(0.1, 0, 0, 100);
+    PricingState state = engine.recordSale(engine.initialState(), 8);
+    assertEquals(1800, engine.getPrice(BASE_PRICE, state, 0));
+    tick += HALF_LIFE;
+    assertEquals(1400, engine.getPrice(BASE_PRICE, state, 0));
+    tick += HALF_LIFE;
+    assertEquals(1200, engine.getPrice(BASE_PRICE, state, 0));
+    tick += 20 * HALF_LIFE;
+    assertEquals(BASE_PRICE, engine.getPrice(BASE_PRICE, state, 0));
+  }
+
+  @Test
+  void demandOfLongSaleSequenceConverges() {
+    PricingEngine engine = engine(0.01, 0, 0, 100);
+    PricingState state = engine.initialState();
+    long interval = 10;
+    for (int sale = 0; sale < 10_000; sale++) {
+      tick += interval;
+      state = engine.recordSale(state, 1);
+    }
+    // geometric series of one lot per interval, decayed by half every half life
+    double expected = 1 / (1 - Math.pow(0.5, (double) interval / HALF_LIFE));
+    assertEquals(expected, state.rate(), 1e-6);
+    assertEquals(Math.round(BASE_PRICE * (1 + 0.01 * expected)),
+        engine.getPrice(BASE_PRICE, state, 0));
+  }
+
+  @Test
+  void sequencesWithEqualTimingHaveEqualDemand() {
+    PricingEngine engine = engine(0.01, 0, 0, 100);
+    PricingState single = engine.initialState();
+    PricingState batched = engine.initialState();
+    for (int sale = 0; sale < 5_000; sale++) {
+      tick += 7;
+      single = engine.recordSale(single, 1);
+      single = engine.recordSale(single, 1);
+      batched = engine.recordSale(batched, 2);
+    }
+    assertEquals(batched.rate(), single.rate(), 1e-9);
+  }
+
+  @Test
+  void factorIsClampedToMaximum() {
+    PricingEngine engine = engine(1, 0, 0.5, 3);
+    PricingState state = engine.recordSale(engine.initialState(), 1_000);
+    assertEquals(3 * BASE_PRICE, engine.getPrice(BASE_PRICE, state, 0));
+  }
+
+  @Test
+  void factorIsClampedToMinimum() {
+    PricingEngine engine = engine(0, 1, 0.5, 3);
+    assertEquals(BASE_PRICE / 2, engine.getPrice(BASE_PRICE, engine.initialState(), 1_000));
+  }
+
+  @Test
+  void priceIsAtLeastOne() {
+    PricingEngine engine = engine(0, 1, 0.01, 3);
+    assertEquals(1, engine.getPrice(1, engine.initialState(), 1_000));
+  }
+
+  @Test
+  void nonPositiveBasePriceIsKept() {
+    PricingEngine engine = engine(1, 0, 0.5, 3);
+    PricingState state = engine.recordSale(engine.initialState(), 10);
+    assertEquals(0, engine.getPrice(0, state, 0));
+  }
+
+  @Test
+  void stockLowersThePrice() {
+    PricingEngine engine = engine(0, 0.01, 0, 100);
+    PricingState state = engine.initialState();
+    assertEquals(BASE_PRICE, engine.getPrice(BASE_PRICE, state, 0));
+    assertEquals(900, engine.getPrice(BASE_PRICE, state, 10));
+    assertEquals(500, engine.getPrice(BASE_PRICE, state, 50));
+  }
+
+  @Test
+  void clockMovingBackwardsDoesNotRaiseDemand() {
+    PricingEngine engine = engine(0.1, 0, 0, 100);
+    tick = 5 * HALF_LIFE;
+    PricingState state = engine.recordSale(engine.initialState(), 8);
+    int price = engine.getPrice(BASE_PRICE, state, 0);
+    tick = 0;
+    assertEquals(price, engine.getPrice(BASE_PRICE, state, 0));
+    PricingState next = engine.recordSale(state, 1);
+    assertTrue(next.rate() <= state.rate() + 1, "demand grew by more than the sale");
+  }
+}
@@ -0,0 +1,71 @@
+package com.github.sowasvonbot.trading;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class TransactionTest {
+
+  @Test
+  void zeroPriceTradesNothing() {
+    assertTrue(Transaction.getMaximumPossibleTransactions(64, 0, 1, 100).isEmpty());
+  }
+
+  @Test
+  void emptyStockTradesNothing() {
+    assertTrue(Transaction.getMaximumPossibleTransactions(0, 5, 1, 100).isEmpty());
+  }
+
+  @Test
+  void stockBelowOneLotTradesNothing() {
+    assertTrue(Transaction.getMaximumPossibleTransactions(3, 5, 4, 100).isEmpty());
+  }
+
+  @Test
+  void moneyBelowOnePriceTradesNothing() {
+    assertTrue(Transaction.getMaximumPossibleTransactions(64, 5, 1, 4).isEmpty());
+  }
+
+  @Test
+  void zeroPiecesAreOnlyLimitedByMoney() {
+    assertTransaction(new Transaction(3, 21, 0),
+        Transaction.getMaximumPossibleTransactions(1, 7, 0, 23));
+  }
+
+  @Test
+  void stockLimitsExactMultiples() {
+    assertTransaction(new Transaction(4, 12, 64),
+        Transaction.getMaximumPossibleTransactions(64, 3, 16, 1000));
+  }
+
+  @Test
+  void stockLimitsWithLeftoverPieces() {
+    assertTransaction(new Transaction(3, 9, 48),
+        Transaction.getMaximumPossibleTransactions(63, 3, 16, 1000));
+  }
+
+  @Test
+  void moneyLimitsExactMultiples() {
+    assertTransaction(new Transaction(5, 50, 10),
+        Transaction.getMaximumPossibleTransactions(64, 10, 2, 50));
+  }
+
+  @Test
+  void moneyLimitsWithLeftoverCoins() {
+    assertTransaction(new Transaction(5, 50, 10),
+        Transaction.getMaximumPossibleTransactions(64, 10, 2, 59));
+  }
+
+  @Test
+  void singleLot() {
+    assertTransaction(new Transaction(1, 5, 1),
+        Transaction.getMaximumPossibleTransactions(1, 5, 1, 5));
+  }
+
+  private static void assertTransaction(Transaction expected, Transaction actual) {
+    assertEquals(expected.lots(), actual.lots(), "lots");
+    assertEquals(expected.price(), actual.price(), "price");
+    assertEquals(expected.amount(), actual.amount(), "amount");
+  }
+}